@@ -0,0 +1,3710 @@
+package com.github.idealismxxm.excelutils;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.text.DecimalFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * POI实现excel文件读写(导入/导出)操作工具类
+ *
+ * @author zhuxiongxian
+ * @version 1.0
+ * @keywords java excel poi 导入 导出
+ * @date at 2016年11月10日 下午2:10:57
+ * @modifiedBy idealism
+ */
+public class ExcelUtil {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ExcelUtil.class);
+
+    /**
+     * office2003 文件类型
+     */
+    private final static String XLS = "xls";
+
+    /**
+     * office2007 文件类型
+     */
+    private final static String XLSX = "xlsx";
+
+    /**
+     * csv 文件类型
+     */
+    private final static String CSV = "csv";
+
+    /**
+     * 读取 csv 时默认的编码
+     */
+    private final static Charset DEFAULT_CSV_CHARSET = StandardCharsets.UTF_8;
+
+    /**
+     * 导出 xlsx 时内存里一次保留的行数
+     */
+    private final static int ROW_ACCESS_WINDOW_SIZE = 5000;
+
+    /**
+     * 默认的排队等待执行的异步导出任务数上限
+     */
+    private final static int DEFAULT_EXPORT_QUEUE_CAPACITY = 64;
+
+    /**
+     * 导出时默认的日期格式
+     */
+    private final static String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+
+    /**
+     * 判断是否为文本文件时预读的字节数
+     */
+    private final static int TEXT_PEEK_SIZE = 512;
+
+    /**
+     * 读取 xlsx 时，文件大小（字节）达到该值则自动使用 SAX 流式解析，默认 10MB；没有读取扩展时不生效
+     */
+    private static volatile long streamingThreshold = 10L * 1024 * 1024;
+
+    /**
+     * 异步导出的线程池，首次使用时创建
+     */
+    private static volatile ThreadPoolExecutor exportExecutor;
+
+    /**
+     * 异步导出同时执行的任务数上限，默认为 CPU 核数
+     */
+    private static volatile int exportConcurrency = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 排队等待执行的异步导出任务数上限
+     */
+    private static volatile int exportQueueCapacity = DEFAULT_EXPORT_QUEUE_CAPACITY;
+
+    /**
+     * 已提交、还未结束的异步导出任务数（执行中和排队的）
+     */
+    private static final AtomicInteger pendingExports = new AtomicInteger();
+
+    /**
+     * 读写统计的监听器，默认不统计
+     */
+    private static volatile ExcelMetrics metrics = ExcelMetrics.NOOP;
+
+    /**
+     * 读取的扩展，类路径上有 {@link ReadExtension} 的实现（如 excelutils-streaming）时使用它，否则按对象模型读取
+     */
+    private static volatile ReadExtension readExtension = loadReadExtension();
+
+    /**
+     * 用于汇总多个 sheet 的 VO
+     *
+     * @author zhuxiongxian
+     * @version 1.0
+     * @date at 2016年12月14日 下午4:25:53
+     */
+    public static class ExcelSheet<T> {
+        /**
+         * sheet 的表名
+         */
+        private String sheetName;
+
+        /**
+         * sheet 的表头
+         */
+        private String[] headers;
+
+        /**
+         * sheet 的数据集
+         */
+        private Collection<T> dataset;
+
+        /**
+         * @return 表名
+         */
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        /**
+         * @param sheetName 表名
+         */
+        public void setSheetName(String sheetName) {
+            this.sheetName = sheetName;
+        }
+
+        /**
+         * @return 表头列表
+         */
+        public String[] getHeaders() {
+            return headers;
+        }
+
+        /**
+         * @param headers 表头列表
+         */
+        public void setHeaders(String[] headers) {
+            this.headers = headers;
+        }
+
+        /**
+         * @return 数据集
+         */
+        public Collection<T> getDataset() {
+            return dataset;
+        }
+
+        /**
+         * @param dataset 数据集
+         */
+        public void setDataset(Collection<T> dataset) {
+            this.dataset = dataset;
+        }
+
+    }
+
+    /**
+     * 对外提供读取excel的方法， 当且仅当只有一个sheet， 默认从第一个 sheet 读取数据
+     *
+     * @param filePath 文件路径
+     * @return 文件第一个 sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(String filePath) throws IOException {
+        return readExcel(filePath, 0);
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据 sheet 下标读取 sheet 数据
+     *
+     * @param filePath   文件路径
+     * @param sheetIndex 表下标（下标从 0 开始）
+     * @return 文件第 sheetIndex + 1 个 sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(String filePath, int sheetIndex) throws IOException {
+        return readSheetData(new File(filePath), sheetIndex, null, null);
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据 sheet 下标索引读取sheet对象，并指定行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始
+     *
+     * @param filePath         文件路径
+     * @param sheetIndex       表下标（下标从 0 开始）
+     * @param startRowIndex    起始行下标
+     * @param startColumnIndex 起始列下标
+     * @return 文件第 sheetIndex + 1 个 sheet 的 行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始的所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(String filePath, int sheetIndex, int startRowIndex, int startColumnIndex) throws IOException {
+        return readWorkbook(new File(filePath), null,
+                workbook -> getSheetData(workbook, workbook.getSheetAt(sheetIndex), startRowIndex, startColumnIndex));
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet下标索引读取sheet对象， 并指定行列区间获取数据[startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex)
+     *
+     * @param filePath         文件路径
+     * @param sheetIndex       表下标（下标从 0 开始）
+     * @param startRowIndex    起始行下标
+     * @param endRowIndex      结束行下标 + 1
+     * @param startColumnIndex 起始列下标
+     * @param endColumnIndex   结束列下标 + 1
+     * @return 文件第 sheetIndex + 1 个 sheet 的区间 [startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex) 内所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(String filePath, int sheetIndex, int startRowIndex, int endRowIndex,
+                                               int startColumnIndex, int endColumnIndex) throws IOException {
+        return readWorkbook(new File(filePath), null,
+                workbook -> getSheetData(workbook, workbook.getSheetAt(sheetIndex), startRowIndex, endRowIndex, startColumnIndex, endColumnIndex));
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet名称读取sheet数据
+     *
+     * @param filePath  文件路径
+     * @param sheetName 表名
+     * @return 文件第 表名为 sheetName 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(String filePath, String sheetName) throws IOException {
+        return readSheetData(new File(filePath), 0, sheetName, null);
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet名称读取sheet对象， 并指定行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始
+     *
+     * @param filePath         文件路径
+     * @param sheetName        表名
+     * @param startRowIndex    起始行下标
+     * @param startColumnIndex 起始列下标
+     * @return 文件表名为 sheetName 的 sheet 的 行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始的所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(String filePath, String sheetName, int startRowIndex, int startColumnIndex) throws IOException {
+        return readWorkbook(new File(filePath), null,
+                workbook -> getSheetData(workbook, workbook.getSheet(sheetName), startRowIndex, startColumnIndex));
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet名称读取sheet对象， 并指定行列区间获取数据[startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex)
+     *
+     * @param filePath         文件路径
+     * @param sheetName        表名
+     * @param startRowIndex    起始行下标
+     * @param endRowIndex      结束行下标 + 1
+     * @param startColumnIndex 起始列下标
+     * @param endColumnIndex   结束列下标 + 1
+     * @return 文件表名为 sheetName 的 sheet 的区间 [startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex) 内所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(String filePath, String sheetName, int startRowIndex, int endRowIndex,
+                                               int startColumnIndex, int endColumnIndex) throws IOException {
+        return readWorkbook(new File(filePath), null,
+                workbook -> getSheetData(workbook, workbook.getSheet(sheetName), startRowIndex, endRowIndex, startColumnIndex, endColumnIndex));
+    }
+
+    /**
+     * 对外提供读取excel的方法， 当且仅当只有一个sheet， 默认从第一个 sheet 读取数据
+     *
+     * @param inputStream 文件输入流
+     * @param extension 文件后缀
+     * @return 文件第一个 sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension) throws IOException {
+        return readExcel(inputStream, extension, 0);
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据 sheet 下标读取 sheet 数据
+     *
+     * @param inputStream 文件输入流
+     * @param extension 文件后缀
+     * @param sheetIndex 表下标（下标从 0 开始）
+     * @return 文件第 sheetIndex + 1 个 sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension, int sheetIndex) throws IOException {
+        return readSheetData(inputStream, extension, sheetIndex, null, null, -1);
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据 sheet 下标索引读取sheet对象，并指定行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始
+     *
+     * @param inputStream 文件输入流
+     * @param extension 文件后缀
+     * @param sheetIndex       表下标（下标从 0 开始）
+     * @param startRowIndex    起始行下标
+     * @param startColumnIndex 起始列下标
+     * @return 文件第 sheetIndex + 1 个 sheet 的 行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始的所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension, int sheetIndex, int startRowIndex, int startColumnIndex) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        Workbook workbook = getWorkbook(inputStream, extension);
+        if (workbook != null) {
+            Sheet sheet = workbook.getSheetAt(sheetIndex);
+            list = getSheetData(workbook, sheet, startRowIndex, startColumnIndex);
+        }
+        return list;
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet下标索引读取sheet对象， 并指定行列区间获取数据[startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex)
+     *
+     * @param inputStream 文件输入流
+     * @param extension 文件后缀
+     * @param sheetIndex       表下标（下标从 0 开始）
+     * @param startRowIndex    起始行下标
+     * @param endRowIndex      结束行下标 + 1
+     * @param startColumnIndex 起始列下标
+     * @param endColumnIndex   结束列下标 + 1
+     * @return 文件第 sheetIndex + 1 个 sheet 的区间 [startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex) 内所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension, int sheetIndex, int startRowIndex, int endRowIndex,
+                                               int startColumnIndex, int endColumnIndex) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        Workbook workbook = getWorkbook(inputStream, extension);
+        if (workbook != null) {
+            Sheet sheet = workbook.getSheetAt(sheetIndex);
+            list = getSheetData(workbook, sheet, startRowIndex, endRowIndex, startColumnIndex, endColumnIndex);
+        }
+        return list;
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet名称读取sheet数据
+     *
+     * @param inputStream 文件输入流
+     * @param extension 文件后缀
+     * @param sheetName 表名
+     * @return 文件第 表名为 sheetName 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension, String sheetName) throws IOException {
+        return readSheetData(inputStream, extension, 0, sheetName, null, -1);
+    }
+
+    /**
+     * 根据文件内容识别文件类型，并选择开销最小的方式读取整个 sheet 的数据：
+     * csv 直接按文本解析；达到流式阈值的 xlsx 交给读取扩展以 SAX 流式解析；其余构建 workbook 读取
+     *
+     * @param inputStream 文件输入流
+     * @param extension   文件后缀（仅在无法从文件内容识别类型时作为参考）
+     * @param sheetIndex  表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName   表名
+     * @param plan        查询的执行计划，为 null 表示读取所有行和列
+     * @param size        输入流的字节数，小于 0 表示未知：流式阈值为 0 时流式解析，否则按小文件处理
+     * @return sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    private static List<List<Object>> readSheetData(InputStream inputStream, String extension, int sheetIndex, String sheetName,
+                                                    QueryPlan plan, long size) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        if (inputStream == null) {
+            return list;
+        }
+        inputStream = FileMagic.prepareToCheckMagic(inputStream);
+        String fileType = detectExtension(inputStream, extension);
+        boolean streaming = size < 0 ? streamingThreshold == 0 : size >= streamingThreshold;
+        readRows(inputStream, fileType, sheetIndex, sheetName, streaming, plan, (rowIndex, rowData) -> list.add(rowData));
+        return list;
+    }
+
+    /**
+     * 根据文件内容识别文件类型，并选择开销最小的方式读取整个 sheet 的数据，读取完成后关闭文件<br>
+     * xlsx 直接以文件方式打开，按需解压用到的部分，不需要把整个压缩包复制到内存
+     *
+     * @param file       文件
+     * @param sheetIndex 表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName  表名
+     * @param plan       查询的执行计划，为 null 表示读取所有行和列
+     * @return sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常
+     */
+    private static List<List<Object>> readSheetData(File file, int sheetIndex, String sheetName, QueryPlan plan) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        boolean streaming = file.length() >= streamingThreshold;
+        readRows(file, sheetIndex, sheetName, streaming, plan, (rowIndex, rowData) -> list.add(rowData));
+        return list;
+    }
+
+    /**
+     * 逐行读取 sheet 的数据（包含表头），跳过空行，每读取一行就交给 rowHandler 处理，不在内存中保留整个 sheet 的数据<br>
+     * 有读取扩展（excelutils-streaming）时 xlsx 总是以 SAX 流式解析，不经过 workbook 缓存；没有时按对象模型读取。
+     * csv 逐行解析；xls 最多 65536 行，按对象模型读取
+     *
+     * @param filePath   文件路径
+     * @param sheetIndex 表下标（下标从 0 开始）
+     * @param rowHandler 行数据的处理器
+     * @throws IOException IO 异常，包括 rowHandler 抛出的异常
+     */
+    public static void readRows(String filePath, int sheetIndex, RowHandler rowHandler) throws IOException {
+        readRows(new File(filePath), sheetIndex, null, true, null, rowHandler);
+    }
+
+    /**
+     * 逐行读取 sheet 的数据（包含表头），跳过空行，每读取一行就交给 rowHandler 处理
+     *
+     * @param inputStream 文件输入流
+     * @param extension   文件后缀（仅在无法从文件内容识别类型时作为参考）
+     * @param sheetIndex  表下标（下标从 0 开始）
+     * @param rowHandler  行数据的处理器
+     * @throws IOException IO 异常，包括 rowHandler 抛出的异常
+     * @see #readRows(String, int, RowHandler)
+     */
+    public static void readRows(InputStream inputStream, String extension, int sheetIndex, RowHandler rowHandler) throws IOException {
+        if (inputStream == null) {
+            return;
+        }
+        inputStream = FileMagic.prepareToCheckMagic(inputStream);
+        String fileType = detectExtension(inputStream, extension);
+        readRows(inputStream, fileType, sheetIndex, null, true, null, rowHandler);
+    }
+
+    /**
+     * 逐行读取输入流中指定 sheet 的数据，并向 {@link ExcelMetrics} 报告打开和读取的耗时
+     *
+     * @param inputStream 已调用 {@link FileMagic#prepareToCheckMagic(InputStream)} 的文件输入流
+     * @param fileType    识别出的文件类型
+     * @param sheetIndex  表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName   表名
+     * @param streaming   xlsx 是否以 SAX 流式解析
+     * @param plan        查询的执行计划，为 null 表示读取所有行和列
+     * @param rowHandler  行数据的处理器
+     * @throws IOException IO 异常，包括 rowHandler 抛出的异常
+     */
+    private static void readRows(InputStream inputStream, String fileType, int sheetIndex, String sheetName, boolean streaming,
+                                 QueryPlan plan, RowHandler rowHandler) throws IOException {
+        SheetReader reader = new SheetReader(fileType, sheetIndex, sheetName, plan, rowHandler);
+        if (CSV.equals(fileType)) {
+            checkCsvSheet(sheetIndex, sheetName);
+            readCsv(inputStream, plan == null ? DEFAULT_CSV_CHARSET : plan.query.charset,
+                    plan == null ? reader.rowHandler : plan.filter(reader.rowHandler));
+        } else {
+            readExtension.readSheet(inputStream, fileType, streaming, reader);
+        }
+        metrics.sheetRead(reader.rowHandler.finish());
+    }
+
+    /**
+     * 逐行读取文件中指定 sheet 的数据，并向 {@link ExcelMetrics} 报告打开和读取的耗时
+     *
+     * @param file       文件
+     * @param sheetIndex 表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName  表名
+     * @param streaming  xlsx 是否以 SAX 流式解析，否则按对象模型读取
+     * @param plan       查询的执行计划，为 null 表示读取所有行和列
+     * @param rowHandler 行数据的处理器
+     * @throws IOException IO 异常，包括 rowHandler 抛出的异常
+     */
+    private static void readRows(File file, int sheetIndex, String sheetName, boolean streaming, QueryPlan plan,
+                                 RowHandler rowHandler) throws IOException {
+        String fileType = detectExtension(file);
+        SheetReader reader = new SheetReader(fileType, sheetIndex, sheetName, plan, rowHandler);
+        if (CSV.equals(fileType)) {
+            checkCsvSheet(sheetIndex, sheetName);
+            try (InputStream inputStream = new FileInputStream(file)) {
+                readCsv(inputStream, plan == null ? DEFAULT_CSV_CHARSET : plan.query.charset,
+                        plan == null ? reader.rowHandler : plan.filter(reader.rowHandler));
+            }
+        } else {
+            readExtension.readSheet(file, fileType, streaming, reader);
+        }
+        metrics.sheetRead(reader.rowHandler.finish());
+    }
+
+    /**
+     * 逐行读取 workbook 中 sheet 的数据，跳过空行
+     *
+     * @param workbook   工作簿
+     * @param sheet      表
+     * @param plan       查询的执行计划，为 null 表示读取所有行和列
+     * @param rowHandler 行数据的处理器
+     * @throws IOException rowHandler 抛出的异常
+     */
+    private static void readRows(Workbook workbook, Sheet sheet, QueryPlan plan, RowHandler rowHandler) throws IOException {
+        rowHandler.startSheet(sheet.getSheetName());
+        Iterator<Row> rowIterator = sheet.rowIterator();
+        while (rowIterator.hasNext()) {
+            Row row = rowIterator.next();
+            if (plan != null) {
+                plan.handle(row, rowHandler);
+                continue;
+            }
+            // 整行都空，就跳过
+            if (isBlankRow(workbook, row)) {
+                continue;
+            }
+            rowHandler.handle(row.getRowNum(), getRowData(workbook, row));
+        }
+    }
+
+    /**
+     * 按查询读取 sheet 的数据：只读取选中的列，只保留满足条件的行<br>
+     * 未选中的列不解码（不查共享字符串表、不转换日期），不满足条件的行不创建行数据
+     *
+     * @param filePath 文件路径
+     * @param query    查询
+     * @return 满足条件的行中选中列的数据（包含表头），列按选中的顺序排列
+     * @throws IOException IO 异常，包括表头中不存在选中的列
+     */
+    public static List<List<Object>> readExcel(String filePath, ReadQuery query) throws IOException {
+        return readSheetData(new File(filePath), query.sheetIndex, query.sheetName, query.plan());
+    }
+
+    /**
+     * 按查询读取 sheet 的数据
+     *
+     * @param inputStream 文件输入流
+     * @param extension   文件后缀（仅在无法从文件内容识别类型时作为参考）
+     * @param query       查询
+     * @return 满足条件的行中选中列的数据（包含表头），列按选中的顺序排列
+     * @throws IOException IO 异常，包括表头中不存在选中的列
+     * @see #readExcel(String, ReadQuery)
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension, ReadQuery query) throws IOException {
+        return readSheetData(inputStream, extension, query.sheetIndex, query.sheetName, query.plan(), query.size);
+    }
+
+    /**
+     * 按查询逐行读取 sheet 的数据（包含表头），每读取一个满足条件的行就交给 rowHandler 处理
+     *
+     * @param filePath   文件路径
+     * @param query      查询
+     * @param rowHandler 行数据的处理器，行数据只包含选中的列
+     * @throws IOException IO 异常，包括 rowHandler 抛出的异常
+     * @see #readExcel(String, ReadQuery)
+     */
+    public static void readRows(String filePath, ReadQuery query, RowHandler rowHandler) throws IOException {
+        readRows(new File(filePath), query.sheetIndex, query.sheetName, true, query.plan(), rowHandler);
+    }
+
+    /**
+     * 按查询逐行读取输入流中 sheet 的数据（包含表头），每读取一个满足条件的行就交给 rowHandler 处理
+     *
+     * @param inputStream 文件输入流
+     * @param extension   文件后缀（仅在无法从文件内容识别类型时作为参考）
+     * @param query       查询
+     * @param rowHandler  行数据的处理器，行数据只包含选中的列
+     * @throws IOException IO 异常，包括 rowHandler 抛出的异常
+     * @see #readRows(String, ReadQuery, RowHandler)
+     */
+    public static void readRows(InputStream inputStream, String extension, ReadQuery query, RowHandler rowHandler) throws IOException {
+        if (inputStream == null) {
+            return;
+        }
+        inputStream = FileMagic.prepareToCheckMagic(inputStream);
+        String fileType = detectExtension(inputStream, extension);
+        readRows(inputStream, fileType, query.sheetIndex, query.sheetName, true, query.plan(), rowHandler);
+    }
+
+    /**
+     * 读取 sheet 的查询：要读取的 sheet、选中的列和行的过滤条件，不可变，可以在多个线程、多次读取之间共享<br>
+     * sheet 的第一个非空行作为表头，按表头名称选中的列在读到表头时定位；表头总是输出，不参与过滤。
+     * 选中的列都为空的行视为空行，跳过。例如只读取已支付订单的三列：
+     * <pre>
+     * ReadQuery query = ReadQuery.sheet(0)
+     *         .select("订单号", "金额", "状态")
+     *         .where("状态", "已支付"::equals);
+     * List&lt;List&lt;Object&gt;&gt; rows = ExcelUtil.readExcel(filePath, query);
+     * </pre>
+     */
+    public static final class ReadQuery {
+        /**
+         * 表下标（下标从 0 开始），sheetName 不为 null 时忽略
+         */
+        private final int sheetIndex;
+
+        /**
+         * 表名
+         */
+        private final String sheetName;
+
+        /**
+         * 选中的列：表头名称（String）或列下标（Integer），为空表示所有列
+         */
+        private final List<Object> columns;
+
+        /**
+         * 行的过滤条件，同时满足所有条件的行才保留
+         */
+        private final List<Condition> conditions;
+
+        /**
+         * 输入流的字节数，小于 0 表示未知
+         */
+        private final long size;
+
+        /**
+         * csv 文件的编码
+         */
+        private final Charset charset;
+
+        private ReadQuery(int sheetIndex, String sheetName, List<Object> columns, List<Condition> conditions, long size,
+                          Charset charset) {
+            this.sheetIndex = sheetIndex;
+            this.sheetName = sheetName;
+            this.columns = columns;
+            this.conditions = conditions;
+            this.size = size;
+            this.charset = charset;
+        }
+
+        /**
+         * @param sheetIndex 表下标（下标从 0 开始）
+         * @return 读取指定 sheet 所有行和列的查询
+         */
+        public static ReadQuery sheet(int sheetIndex) {
+            return new ReadQuery(sheetIndex, null, Collections.emptyList(), Collections.emptyList(), -1, DEFAULT_CSV_CHARSET);
+        }
+
+        /**
+         * @param sheetName 表名
+         * @return 读取指定 sheet 所有行和列的查询
+         */
+        public static ReadQuery sheet(String sheetName) {
+            return new ReadQuery(0, Objects.requireNonNull(sheetName), Collections.emptyList(), Collections.emptyList(), -1, DEFAULT_CSV_CHARSET);
+        }
+
+        /**
+         * 按表头名称选中列，追加在已选中的列之后
+         *
+         * @param headers 表头名称
+         * @return 新的查询
+         */
+        public ReadQuery select(String... headers) {
+            List<Object> selected = new ArrayList<>(columns);
+            for (String header : headers) {
+                selected.add(Objects.requireNonNull(header));
+            }
+            return new ReadQuery(sheetIndex, sheetName, Collections.unmodifiableList(selected), conditions, size, charset);
+        }
+
+        /**
+         * 按列下标选中列，追加在已选中的列之后
+         *
+         * @param columnIndexes 列下标（下标从 0 开始）
+         * @return 新的查询
+         */
+        public ReadQuery select(int... columnIndexes) {
+            List<Object> selected = new ArrayList<>(columns);
+            for (int columnIndex : columnIndexes) {
+                selected.add(checkColumnIndex(columnIndex));
+            }
+            return new ReadQuery(sheetIndex, sheetName, Collections.unmodifiableList(selected), conditions, size, charset);
+        }
+
+        /**
+         * 增加行的过滤条件，过滤条件用到的列不需要选中
+         *
+         * @param header    表头名称
+         * @param predicate 单元格值（与 {@link ExcelUtil#getCellValue(Cell)} 一致，空单元格为 null）需要满足的条件
+         * @return 新的查询
+         */
+        public ReadQuery where(String header, Predicate<Object> predicate) {
+            return where(new Condition(Objects.requireNonNull(header), predicate));
+        }
+
+        /**
+         * 增加行的过滤条件，过滤条件用到的列不需要选中
+         *
+         * @param columnIndex 列下标（下标从 0 开始）
+         * @param predicate   单元格值（与 {@link ExcelUtil#getCellValue(Cell)} 一致，空单元格为 null）需要满足的条件
+         * @return 新的查询
+         */
+        public ReadQuery where(int columnIndex, Predicate<Object> predicate) {
+            return where(new Condition(checkColumnIndex(columnIndex), predicate));
+        }
+
+        private ReadQuery where(Condition condition) {
+            List<Condition> added = new ArrayList<>(conditions);
+            added.add(condition);
+            return new ReadQuery(sheetIndex, sheetName, columns, Collections.unmodifiableList(added), size, charset);
+        }
+
+        /**
+         * 设置输入流的字节数（如上传文件的大小），从输入流读取时据此选择解析方式：达到流式阈值的 xlsx 使用 SAX 流式解析（需要 excelutils-streaming）；
+         * 未设置时无法得知输入流的大小，按小文件处理。按文件路径读取时使用文件的实际大小，忽略该设置
+         *
+         * @param size 输入流的字节数
+         * @return 新的查询
+         * @see ExcelUtil#setStreamingThreshold(long)
+         */
+        public ReadQuery size(long size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("输入流的字节数不能小于 0");
+            }
+            return new ReadQuery(sheetIndex, sheetName, columns, conditions, size, charset);
+        }
+
+        /**
+         * 设置 csv 文件的编码，默认为 UTF-8。中文环境下的 Excel 另存为的 csv 通常是 GBK 编码，需要指定
+         * Charset.forName("GBK")；读取 xls 和 xlsx 时忽略该设置
+         *
+         * @param charset csv 文件的编码
+         * @return 新的查询
+         * @see ExcelUtil#readCsv(InputStream, Charset)
+         */
+        public ReadQuery charset(Charset charset) {
+            return new ReadQuery(sheetIndex, sheetName, columns, conditions, size, Objects.requireNonNull(charset));
+        }
+
+        private static Integer checkColumnIndex(int columnIndex) {
+            if (columnIndex < 0) {
+                throw new IllegalArgumentException("列下标不能小于 0");
+            }
+            return columnIndex;
+        }
+
+        /**
+         * @return 一次读取使用的执行计划
+         */
+        private QueryPlan plan() {
+            return new QueryPlan(this);
+        }
+
+        public int getSheetIndex() {
+            return sheetIndex;
+        }
+
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        public List<Object> getColumns() {
+            return columns;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+    }
+
+    /**
+     * 行的过滤条件
+     */
+    private static class Condition {
+        /**
+         * 表头名称（String）或列下标（Integer）
+         */
+        private final Object column;
+
+        private final Predicate<Object> predicate;
+
+        Condition(Object column, Predicate<Object> predicate) {
+            this.column = column;
+            this.predicate = Objects.requireNonNull(predicate);
+        }
+    }
+
+    /**
+     * 查询的执行计划，每次读取使用一个：读到表头后把表头名称解析为列下标，此后读取器只解码选中的列和过滤条件用到的列，
+     * 解码出的值放在复用的数组中，满足条件的行才创建行数据
+     */
+    private static class QueryPlan {
+        private final ReadQuery query;
+
+        /**
+         * 是否还未读到表头
+         */
+        private boolean headerPending = true;
+
+        /**
+         * 输出列的列下标，为 null 表示所有列
+         */
+        private int[] outputColumns;
+
+        /**
+         * 过滤条件用到的列下标，与 query.conditions 一一对应
+         */
+        private int[] conditionColumns;
+
+        /**
+         * 需要解码的列，下标为列下标
+         */
+        private boolean[] needed;
+
+        /**
+         * 当前行已解码的值，下标为列下标
+         */
+        private Object[] values = new Object[16];
+
+        /**
+         * 当前行最后一个已解码的列下标 + 1
+         */
+        private int width;
+
+        /**
+         * 上次取走后被过滤条件拒绝的行数
+         */
+        private int filteredRows;
+
+        QueryPlan(ReadQuery query) {
+            this.query = query;
+        }
+
+        /**
+         * @param columnIndex 列下标
+         * @return 当前行是否需要解码该列
+         */
+        boolean needs(int columnIndex) {
+            return headerPending || outputColumns == null || (columnIndex < needed.length && needed[columnIndex]);
+        }
+
+        /**
+         * 开始新的一行
+         */
+        void startRow() {
+            Arrays.fill(values, 0, width, null);
+            width = 0;
+        }
+
+        /**
+         * @param columnIndex 列下标
+         * @param value       单元格值
+         */
+        void set(int columnIndex, Object value) {
+            if (columnIndex >= values.length) {
+                values = Arrays.copyOf(values, Math.max(columnIndex + 1, values.length * 2));
+            }
+            values[columnIndex] = value;
+            width = Math.max(width, columnIndex + 1);
+        }
+
+        /**
+         * 结束当前行：表头解析后输出，数据行跳过空行和不满足条件的行
+         *
+         * @param rowIndex   行下标
+         * @param rowHandler 行数据的处理器
+         * @throws IOException 表头中不存在选中的列，或者 rowHandler 抛出的异常
+         */
+        void endRow(int rowIndex, RowHandler rowHandler) throws IOException {
+            if (headerPending) {
+                endHeaderRow(rowIndex, rowHandler);
+            } else if (!test()) {
+                filteredRows++;
+            } else if (!isBlankRow()) {
+                rowHandler.handle(rowIndex, project());
+            }
+        }
+
+        /**
+         * 读取 workbook 中的一行：先只解码过滤条件用到的列，满足条件后再解码其余选中的列
+         *
+         * @param row        行
+         * @param rowHandler 行数据的处理器
+         * @throws IOException 表头中不存在选中的列，或者 rowHandler 抛出的异常
+         */
+        void handle(Row row, RowHandler rowHandler) throws IOException {
+            startRow();
+            if (headerPending || outputColumns == null) {
+                for (Cell cell : row) {
+                    set(cell.getColumnIndex(), getCellValue(cell));
+                }
+                endRow(row.getRowNum(), rowHandler);
+                return;
+            }
+            for (int columnIndex : conditionColumns) {
+                set(columnIndex, getCellValue(row.getCell(columnIndex)));
+            }
+            if (!test()) {
+                filteredRows++;
+                return;
+            }
+            for (int columnIndex : outputColumns) {
+                set(columnIndex, getCellValue(row.getCell(columnIndex)));
+            }
+            if (!isBlankRow()) {
+                rowHandler.handle(row.getRowNum(), project());
+            }
+        }
+
+        /**
+         * 用于逐行解析出整行数据的读取器（csv）：只做过滤和投影
+         *
+         * @param rowHandler 行数据的处理器
+         * @return 过滤后交给 rowHandler 的处理器
+         */
+        RowHandler filter(RowHandler rowHandler) {
+            return new RowHandler() {
+                @Override
+                public void startSheet(String sheetName) throws IOException {
+                    rowHandler.startSheet(sheetName);
+                }
+
+                @Override
+                public void handle(int rowIndex, List<Object> rowData) throws IOException {
+                    startRow();
+                    for (int i = 0; i < rowData.size(); i++) {
+                        if (needs(i)) {
+                            set(i, rowData.get(i));
+                        }
+                    }
+                    endRow(rowIndex, rowHandler);
+                }
+            };
+        }
+
+        /**
+         * 取走被过滤条件拒绝的行数，与空行分开统计
+         *
+         * @return 上次取走后被过滤条件拒绝的行数
+         */
+        int takeFilteredRows() {
+            int rows = filteredRows;
+            filteredRows = 0;
+            return rows;
+        }
+
+        /**
+         * 结束表头行：空行跳过，否则定位选中的列和过滤条件用到的列，再输出表头
+         */
+        private void endHeaderRow(int rowIndex, RowHandler rowHandler) throws IOException {
+            if (isBlankRow()) {
+                return;
+            }
+            int maxColumnIndex = -1;
+            if (!query.columns.isEmpty()) {
+                outputColumns = new int[query.columns.size()];
+                for (int i = 0; i < outputColumns.length; i++) {
+                    outputColumns[i] = resolve(query.columns.get(i));
+                    maxColumnIndex = Math.max(maxColumnIndex, outputColumns[i]);
+                }
+            }
+            conditionColumns = new int[query.conditions.size()];
+            for (int i = 0; i < conditionColumns.length; i++) {
+                conditionColumns[i] = resolve(query.conditions.get(i).column);
+                maxColumnIndex = Math.max(maxColumnIndex, conditionColumns[i]);
+            }
+            needed = new boolean[maxColumnIndex + 1];
+            if (outputColumns != null) {
+                for (int columnIndex : outputColumns) {
+                    needed[columnIndex] = true;
+                }
+            }
+            for (int columnIndex : conditionColumns) {
+                needed[columnIndex] = true;
+            }
+            List<Object> header = project();
+            headerPending = false;
+            rowHandler.handle(rowIndex, header);
+        }
+
+        /**
+         * @param column 表头名称（String）或列下标（Integer）
+         * @return 列下标
+         * @throws IOException 表头中不存在该名称
+         */
+        private int resolve(Object column) throws IOException {
+            if (column instanceof Integer) {
+                return (Integer) column;
+            }
+            for (int i = 0; i < width; i++) {
+                if (values[i] != null && column.equals(values[i].toString().trim())) {
+                    return i;
+                }
+            }
+            throw new IOException("表头中不存在列：" + column);
+        }
+
+        /**
+         * @return 当前行是否满足所有过滤条件
+         */
+        private boolean test() {
+            for (int i = 0; i < conditionColumns.length; i++) {
+                if (!query.conditions.get(i).predicate.test(get(conditionColumns[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return 当前行输出的列是否都为空
+         */
+        private boolean isBlankRow() {
+            if (outputColumns == null) {
+                for (int i = 0; i < width; i++) {
+                    if (values[i] != null && !"".equals(values[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (int columnIndex : outputColumns) {
+                Object value = get(columnIndex);
+                if (value != null && !"".equals(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return 当前行输出的列组成的行数据
+         */
+        private List<Object> project() {
+            if (outputColumns == null) {
+                return new ArrayList<>(Arrays.asList(values).subList(0, width));
+            }
+            List<Object> rowData = new ArrayList<>(outputColumns.length);
+            for (int columnIndex : outputColumns) {
+                rowData.add(get(columnIndex));
+            }
+            return rowData;
+        }
+
+        private Object get(int columnIndex) {
+            return columnIndex < width ? values[columnIndex] : null;
+        }
+    }
+
+    /**
+     * 行数据的处理器，逐行读取时每读取一个非空行调用一次
+     */
+    public interface RowHandler {
+        /**
+         * 开始读取 sheet，在第一行之前调用；csv 没有 sheet，不调用
+         *
+         * @param sheetName 表名
+         * @throws IOException 处理失败，读取随之终止
+         */
+        default void startSheet(String sheetName) throws IOException {
+        }
+
+        /**
+         * 处理一行数据
+         *
+         * @param rowIndex 行在 sheet 中的下标（从 0 开始，空行也计入）
+         * @param rowData  行数据，读取器不会再修改
+         * @throws IOException 处理失败，读取随之终止
+         */
+        void handle(int rowIndex, List<Object> rowData) throws IOException;
+    }
+
+    /**
+     * 统计行数、单元格数和跳过的空行数的行数据处理器，空行按相邻两次调用之间行下标的间隔计算，
+     * 间隔中被查询的过滤条件拒绝的行不算空行
+     */
+    private static class MeteredRowHandler implements RowHandler {
+        /**
+         * 被统计的处理器
+         */
+        private final RowHandler rowHandler;
+
+        /**
+         * 查询的执行计划，为 null 表示没有过滤条件
+         */
+        private final QueryPlan plan;
+
+        /**
+         * 统计结果
+         */
+        private final SheetReadStats stats;
+
+        /**
+         * 开始读取的时间（纳秒）
+         */
+        private long startNanos = System.nanoTime();
+
+        /**
+         * 上一行的下标
+         */
+        private int lastRowIndex = -1;
+
+        MeteredRowHandler(String fileType, RowHandler rowHandler, QueryPlan plan) {
+            this.rowHandler = rowHandler;
+            this.plan = plan;
+            this.stats = new SheetReadStats(fileType);
+        }
+
+        @Override
+        public void startSheet(String sheetName) throws IOException {
+            stats.sheetName = sheetName;
+            startNanos = System.nanoTime();
+            rowHandler.startSheet(sheetName);
+        }
+
+        @Override
+        public void handle(int rowIndex, List<Object> rowData) throws IOException {
+            stats.rows++;
+            for (Object cellValue : rowData) {
+                if (cellValue != null) {
+                    stats.cells++;
+                }
+            }
+            int filteredRows = plan == null ? 0 : plan.takeFilteredRows();
+            stats.filteredRows += filteredRows;
+            if (rowIndex > lastRowIndex + 1) {
+                stats.blankRows += rowIndex - lastRowIndex - 1 - filteredRows;
+            }
+            lastRowIndex = rowIndex;
+            rowHandler.handle(rowIndex, rowData);
+        }
+
+        /**
+         * @return 统计结果
+         */
+        SheetReadStats finish() {
+            if (plan != null) {
+                // 最后一个输出行之后被拒绝的行
+                stats.filteredRows += plan.takeFilteredRows();
+            }
+            stats.nanos = System.nanoTime() - startNanos;
+            return stats;
+        }
+    }
+
+    /**
+     * 打开文件对应的 workbook 并读取数据，由读取扩展决定是否使用缓存的 workbook、是否预留读取内存
+     *
+     * @param file     文件
+     * @param fileType 文件类型，为 null 时根据文件内容识别
+     * @param reader   读取数据的方法
+     * @param <R>      数据类型
+     * @return 读取的数据
+     * @throws IOException IO 异常
+     */
+    private static <R> R readWorkbook(File file, String fileType, WorkbookReader<R> reader) throws IOException {
+        return readExtension.readWorkbook(file, fileType == null ? detectExtension(file) : fileType, reader);
+    }
+
+    /**
+     * 从 workbook 读取数据的方法
+     *
+     * @param <R> 数据类型
+     */
+    public interface WorkbookReader<R> {
+        /**
+         * @param workbook 工作簿
+         * @return 读取的数据
+         * @throws IOException IO 异常
+         */
+        R read(Workbook workbook) throws IOException;
+    }
+
+    /**
+     * 读取的扩展点：决定 xls / xlsx 以什么方式打开和解析，csv 总是由 ExcelUtil 自己解析<br>
+     * 默认实现按对象模型读取；excelutils-streaming 通过 {@link java.util.ServiceLoader} 注册的实现增加了
+     * SAX 流式解析、workbook 缓存和读取内存预算。实现必须是线程安全的
+     *
+     * @see #setReadExtension(ReadExtension)
+     */
+    public interface ReadExtension {
+        /**
+         * 按对象模型读取，不缓存，不限制内存
+         */
+        ReadExtension DEFAULT = new ReadExtension() {
+        };
+
+        /**
+         * 读取文件中的一个 sheet
+         *
+         * @param file      文件
+         * @param fileType  识别出的文件类型：xls / xlsx，或者无法识别时的文件后缀
+         * @param streaming 调用方是否希望 xlsx 以流式解析（达到流式阈值或者逐行读取）
+         * @param reader    要读取的 sheet 和行数据的处理器
+         * @throws IOException IO 异常，包括行数据的处理器抛出的异常
+         */
+        default void readSheet(File file, String fileType, boolean streaming, SheetReader reader) throws IOException {
+            readWorkbook(file, fileType, workbook -> {
+                reader.read(workbook);
+                return null;
+            });
+        }
+
+        /**
+         * 读取输入流中的一个 sheet
+         *
+         * @param inputStream 已调用 {@link FileMagic#prepareToCheckMagic(InputStream)} 的文件输入流
+         * @param fileType    识别出的文件类型：xls / xlsx，或者无法识别时的文件后缀
+         * @param streaming   调用方是否希望 xlsx 以流式解析（达到流式阈值或者逐行读取）
+         * @param reader      要读取的 sheet 和行数据的处理器
+         * @throws IOException IO 异常，包括行数据的处理器抛出的异常
+         */
+        default void readSheet(InputStream inputStream, String fileType, boolean streaming, SheetReader reader) throws IOException {
+            try (Workbook workbook = openWorkbook(inputStream, fileType)) {
+                reader.read(workbook);
+            }
+        }
+
+        /**
+         * 打开文件对应的 workbook 并读取数据，读取完成后关闭 workbook
+         *
+         * @param file     文件
+         * @param fileType 识别出的文件类型
+         * @param reader   读取数据的方法
+         * @param <R>      数据类型
+         * @return 读取的数据
+         * @throws IOException IO 异常
+         */
+        default <R> R readWorkbook(File file, String fileType, WorkbookReader<R> reader) throws IOException {
+            try (Workbook workbook = openWorkbook(file, fileType)) {
+                return reader.read(workbook);
+            }
+        }
+
+        /**
+         * 把 workbook 交给调用方之前的检查，如 {@link #getWorkbook(File)} 和 {@link #openForRead(File)}
+         *
+         * @param file     文件
+         * @param fileType 识别出的文件类型
+         * @throws IOException 不允许打开该文件
+         */
+        default void checkWorkbook(File file, String fileType) throws IOException {
+        }
+
+        /**
+         * 以文件方式打开 workbook，由 POI 直接随机读取文件，不经过输入流复制
+         *
+         * @param file     文件
+         * @param fileType 识别出的文件类型
+         * @return workbook
+         * @throws IOException IO 异常
+         */
+        default Workbook openWorkbook(File file, String fileType) throws IOException {
+            return ExcelUtil.openWorkbook(file, fileType);
+        }
+
+        /**
+         * 从输入流构建 workbook
+         *
+         * @param inputStream 已调用 {@link FileMagic#prepareToCheckMagic(InputStream)} 的文件输入流
+         * @param fileType    识别出的文件类型
+         * @return workbook
+         * @throws IOException IO 异常
+         */
+        default Workbook openWorkbook(InputStream inputStream, String fileType) throws IOException {
+            return ExcelUtil.openWorkbook(inputStream, fileType);
+        }
+    }
+
+    /**
+     * 一次读取中要读取的 sheet 和行数据的处理器，由 ExcelUtil 创建后交给 {@link ReadExtension}，并统计读取的耗时<br>
+     * 按对象模型读取时调用 {@link #read(Workbook)}；流式解析时先调用 {@link #opened()}、{@link #startSheet(String)}，
+     * 再逐个单元格调用 {@link #needs(int)}、{@link #set(int, Object)}，每行以 {@link #startRow()} 开始、{@link #endRow(int)} 结束
+     */
+    public static final class SheetReader {
+        private final String fileType;
+
+        private final int sheetIndex;
+
+        private final String sheetName;
+
+        /**
+         * 查询的执行计划，为 null 表示读取所有行和列
+         */
+        private final QueryPlan plan;
+
+        /**
+         * 流式解析时逐个单元格收集行数据的执行计划，没有查询时使用读取所有行和列的执行计划
+         */
+        private QueryPlan cellPlan;
+
+        private final MeteredRowHandler rowHandler;
+
+        /**
+         * 开始读取的时间（纳秒）
+         */
+        private final long startNanos = System.nanoTime();
+
+        private SheetReader(String fileType, int sheetIndex, String sheetName, QueryPlan plan, RowHandler rowHandler) {
+            this.fileType = fileType;
+            this.sheetIndex = sheetIndex;
+            this.sheetName = sheetName;
+            this.plan = plan;
+            this.rowHandler = new MeteredRowHandler(fileType, rowHandler, plan);
+        }
+
+        /**
+         * @return 表下标（下标从 0 开始），sheetName 不为 null 时忽略
+         */
+        public int getSheetIndex() {
+            return sheetIndex;
+        }
+
+        /**
+         * @return 表名
+         */
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        /**
+         * 文件已打开，报告打开的耗时（命中缓存时接近 0）
+         */
+        public void opened() {
+            metrics.workbookOpened(fileType, System.nanoTime() - startNanos);
+        }
+
+        /**
+         * 按对象模型读取 workbook 中要读取的 sheet
+         *
+         * @param workbook 工作簿
+         * @throws IOException 行数据的处理器抛出的异常
+         */
+        public void read(Workbook workbook) throws IOException {
+            opened();
+            Sheet sheet = sheetName == null ? workbook.getSheetAt(sheetIndex) : workbook.getSheet(sheetName);
+            readRows(workbook, sheet, plan, rowHandler);
+        }
+
+        /**
+         * 流式解析时开始读取 sheet，在第一行之前调用
+         *
+         * @param sheetName 表名
+         * @throws IOException 行数据的处理器抛出的异常
+         */
+        public void startSheet(String sheetName) throws IOException {
+            cellPlan = plan != null ? plan : new QueryPlan(ReadQuery.sheet(0));
+            rowHandler.startSheet(sheetName);
+        }
+
+        /**
+         * @param columnIndex 列下标
+         * @return 当前行是否需要解码该列，不需要的列不必调用 {@link #set(int, Object)}
+         */
+        public boolean needs(int columnIndex) {
+            return cellPlan.needs(columnIndex);
+        }
+
+        /**
+         * 开始新的一行
+         */
+        public void startRow() {
+            cellPlan.startRow();
+        }
+
+        /**
+         * @param columnIndex 列下标
+         * @param value       单元格值，与 {@link ExcelUtil#getCellValue(Cell)} 一致
+         */
+        public void set(int columnIndex, Object value) {
+            cellPlan.set(columnIndex, value);
+        }
+
+        /**
+         * 结束当前行：跳过空行和不满足条件的行，其余交给行数据的处理器
+         *
+         * @param rowIndex 行下标
+         * @throws IOException 表头中不存在选中的列，或者行数据的处理器抛出的异常
+         */
+        public void endRow(int rowIndex) throws IOException {
+            cellPlan.endRow(rowIndex, rowHandler);
+        }
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet名称读取sheet对象， 并指定行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始
+     *
+     * @param inputStream 文件输入流
+     * @param extension 文件后缀
+     * @param sheetName        表名
+     * @param startRowIndex    起始行下标
+     * @param startColumnIndex 起始列下标
+     * @return 文件表名为 sheetName 的 sheet 的 行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始的所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension, String sheetName, int startRowIndex, int startColumnIndex) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        Workbook workbook = getWorkbook(inputStream, extension);
+        if (workbook != null) {
+            Sheet sheet = workbook.getSheet(sheetName);
+            list = getSheetData(workbook, sheet, startRowIndex, startColumnIndex);
+        }
+        return list;
+    }
+
+    /**
+     * 对外提供读取excel的方法， 根据sheet名称读取sheet对象， 并指定行列区间获取数据[startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex)
+     *
+     * @param inputStream 文件输入流
+     * @param extension 文件后缀
+     * @param sheetName        表名
+     * @param startRowIndex    起始行下标
+     * @param endRowIndex      结束行下标 + 1
+     * @param startColumnIndex 起始列下标
+     * @param endColumnIndex   结束列下标 + 1
+     * @return 文件表名为 sheetName 的 sheet 的区间 [startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex) 内所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> readExcel(InputStream inputStream, String extension, String sheetName, int startRowIndex, int endRowIndex,
+                                               int startColumnIndex, int endColumnIndex) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        Workbook workbook = getWorkbook(inputStream, extension);
+        if (workbook != null) {
+            Sheet sheet = workbook.getSheet(sheetName);
+            list = getSheetData(workbook, sheet, startRowIndex, endRowIndex, startColumnIndex, endColumnIndex);
+        }
+        return list;
+    }
+
+    /**
+     * 获取 workbook 的所有 sheet
+     *
+     * @param workbook 工作簿
+     * @return sheet 列表
+     */
+    public static List<Sheet> getAllSheets(Workbook workbook) {
+        int numOfSheets = workbook.getNumberOfSheets();
+        List<Sheet> sheets = new ArrayList<>();
+        for (int i = 0; i < numOfSheets; i++) {
+            sheets.add(workbook.getSheetAt(i));
+        }
+        return sheets;
+    }
+
+    /**
+     * 根据 输入流 和 其文件后缀 来获取 workbook，文件类型以文件头部的魔数为准<br>
+     * 读取扩展可以在构建前检查，如 excelutils-streaming 的读取内存预算
+     *
+     * @param inputStream 输入流
+     * @param extension   文件后缀（仅在无法从文件内容识别类型时作为参考）
+     * @return workbook
+     * @throws IOException IO 异常
+     */
+    public static Workbook getWorkbook(InputStream inputStream, String extension) throws IOException {
+        Workbook workbook = null;
+        if (inputStream != null) {
+            inputStream = FileMagic.prepareToCheckMagic(inputStream);
+            workbook = readExtension.openWorkbook(inputStream, detectExtension(inputStream, extension));
+        }
+        return workbook;
+    }
+
+    /**
+     * 从输入流构建 workbook
+     *
+     * @param inputStream 输入流
+     * @param fileType    文件类型
+     * @return workbook
+     * @throws IOException IO 异常
+     */
+    private static Workbook openWorkbook(InputStream inputStream, String fileType) throws IOException {
+        // for office2003
+        if (XLS.equals(fileType)) {
+            return new HSSFWorkbook(inputStream);
+        } // for office2007
+        else if (XLSX.equals(fileType)) {
+            return new XSSFWorkbook(inputStream);
+        }
+        throw new IOException("不支持的文件类型");
+    }
+
+    /**
+     * 根据文件头部的魔数识别文件类型：OLE2 为 xls，ZIP(OOXML) 为 xlsx，纯文本为 csv<br>
+     * 输入流必须支持 mark/reset，可先用 {@link FileMagic#prepareToCheckMagic(InputStream)} 包装，识别后输入流位置不变
+     *
+     * @param inputStream 输入流
+     * @param extension   文件后缀，无法从文件内容识别类型时原样返回
+     * @return 文件类型：xls / xlsx / csv，或者传入的文件后缀
+     * @throws IOException IO 异常
+     */
+    public static String detectExtension(InputStream inputStream, String extension) throws IOException {
+        FileMagic fileMagic = FileMagic.valueOf(inputStream);
+        if (FileMagic.OLE2.equals(fileMagic)) {
+            return XLS;
+        }
+        if (FileMagic.OOXML.equals(fileMagic)) {
+            return XLSX;
+        }
+        if (CSV.equalsIgnoreCase(extension) || (FileMagic.UNKNOWN.equals(fileMagic) && isTextContent(inputStream))) {
+            return CSV;
+        }
+        return extension;
+    }
+
+    /**
+     * 预读输入流开头的若干字节，判断是否为纯文本内容（不含除制表符、换行符以外的控制字符）
+     *
+     * @param inputStream 支持 mark/reset 的输入流
+     * @return true：纯文本；false：二进制内容
+     * @throws IOException IO 异常
+     */
+    private static boolean isTextContent(InputStream inputStream) throws IOException {
+        byte[] header = new byte[TEXT_PEEK_SIZE];
+        inputStream.mark(TEXT_PEEK_SIZE);
+        int length = 0;
+        try {
+            int n;
+            while (length < TEXT_PEEK_SIZE && (n = inputStream.read(header, length, TEXT_PEEK_SIZE - length)) != -1) {
+                length += n;
+            }
+        } finally {
+            inputStream.reset();
+        }
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = header[i];
+            if (b >= 0 && b < 0x20 && b != '\t' && b != '\r' && b != '\n' && b != '\f') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取文件后缀
+     *
+     * @param file 文件
+     * @return 文件后缀，没有后缀时返回空字符串
+     */
+    private static String getExtension(File file) {
+        String fileName = file.getName();
+        int lastIndex = fileName.lastIndexOf(".");
+        return lastIndex == -1 ? "" : fileName.substring(lastIndex + 1);
+    }
+
+    /**
+     * 根据文件内容识别文件类型
+     *
+     * @param file 文件
+     * @return 文件类型：xls / xlsx / csv，或者文件后缀
+     * @throws IOException IO 异常
+     */
+    public static String detectExtension(File file) throws IOException {
+        try (InputStream inputStream = FileMagic.prepareToCheckMagic(new FileInputStream(file))) {
+            return detectExtension(inputStream, getExtension(file));
+        }
+    }
+
+    /**
+     * 根据 excel文件 来获取workbook，整个文件读入内存，与文件脱离：可以修改后 write() 到任意输出流（包括原文件）<br>
+     * 打开前经过读取扩展的检查。只读取数据时使用开销更小的 {@link #openForRead(File)}
+     *
+     * @param file 文件
+     * @return workbook
+     * @throws IOException IO 异常
+     */
+    public static Workbook getWorkbook(File file) throws IOException {
+        if (file != null && file.exists() && file.isFile()) {
+            String fileType = detectExtension(file);
+            readExtension.checkWorkbook(file, fileType);
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+                if (XLS.equals(fileType)) {
+                    return new HSSFWorkbook(inputStream);
+                } else if (XLSX.equals(fileType)) {
+                    return new XSSFWorkbook(inputStream);
+                }
+                throw new IOException("不支持的文件类型");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 以只读方式打开 excel文件：由 POI 直接随机读取文件，不把整个文件读入内存，xlsx 只解压用到的部分<br>
+     * 返回的 workbook 用于读取，xlsx 不能 write()（抛出 InvalidOperationException），
+     * 打开期间占用文件句柄，不能写入同一文件，使用完后必须关闭；需要修改并保存时使用 {@link #getWorkbook(File)}<br>
+     * 打开前经过读取扩展的检查
+     *
+     * @param file 文件
+     * @return 只读的 workbook
+     * @throws IOException IO 异常
+     */
+    public static Workbook openForRead(File file) throws IOException {
+        String fileType = detectExtension(file);
+        readExtension.checkWorkbook(file, fileType);
+        return readExtension.openWorkbook(file, fileType);
+    }
+
+    /**
+     * 以文件方式打开 workbook，由 POI 直接随机读取文件，不经过输入流复制
+     *
+     * @param file     文件
+     * @param fileType 文件类型
+     * @return workbook
+     * @throws IOException IO 异常
+     */
+    private static Workbook openWorkbook(File file, String fileType) throws IOException {
+        // for office2003
+        if (XLS.equals(fileType)) {
+            POIFSFileSystem fileSystem = new POIFSFileSystem(file, true);
+            try {
+                return new HSSFWorkbook(fileSystem);
+            } catch (IOException | RuntimeException e) {
+                fileSystem.close();
+                throw e;
+            }
+        } // for office2007
+        else if (XLSX.equals(fileType)) {
+            OPCPackage pkg;
+            try {
+                pkg = OPCPackage.open(file, PackageAccess.READ);
+            } catch (InvalidFormatException e) {
+                throw new IOException("不支持的文件类型", e);
+            }
+            try {
+                return new XSSFWorkbook(pkg);
+            } catch (IOException | RuntimeException e) {
+                pkg.revert();
+                throw e;
+            }
+        }
+        throw new IOException("不支持的文件类型");
+    }
+
+    /**
+     * 根据excel文件来获取workbook
+     *
+     * @param filePath 文件路径
+     * @return workbook
+     * @throws IOException IO 异常
+     */
+    public static Workbook getWorkbook(String filePath) throws IOException {
+        File file = new File(filePath);
+        return getWorkbook(file);
+    }
+
+    /**
+     * 根据excel文件输出路径来获取对应的workbook
+     *
+     * @param filePath 文件路径
+     * @return workbook
+     * @throws IOException IO 异常
+     */
+    public static Workbook getExportWorkbook(String filePath) throws IOException {
+        return getExportWorkbook(filePath, new AtomicLong());
+    }
+
+    /**
+     * 根据excel文件输出路径来获取对应的workbook，并统计 xlsx 溢出到临时文件的字节数
+     *
+     * @param filePath     文件路径
+     * @param spilledBytes 溢出到临时文件的字节数
+     * @return workbook
+     * @throws IOException IO 异常
+     */
+    private static Workbook getExportWorkbook(String filePath, AtomicLong spilledBytes) throws IOException {
+        Workbook workbook;
+        String extension = getExtension(new File(filePath));
+
+        // for 少量数据
+        if (XLS.equals(extension)) {
+            workbook = new HSSFWorkbook();
+        } // for 大量数据
+        else if (XLSX.equals(extension)) {
+            // 定义内存里一次只留5000行
+            workbook = new SpillCountingWorkbook(ROW_ACCESS_WINDOW_SIZE, spilledBytes);
+        } else {
+            throw new IOException("不支持的文件类型");
+        }
+        return workbook;
+    }
+
+    /**
+     * 获取 sheet 的所有数据
+     *
+     * @param workbook 工作簿
+     * @param sheet    表
+     * @return sheet 的所有数据
+     */
+    public static List<List<Object>> getSheetData(Workbook workbook, Sheet sheet) {
+        List<List<Object>> list = new ArrayList<>();
+        Iterator<Row> rowIterator = sheet.rowIterator();
+        while (rowIterator.hasNext()) {
+            Row row = rowIterator.next();
+            // 整行都空，就跳过
+            if (isBlankRow(workbook, row)) {
+                continue;
+            }
+            List<Object> rowData = getRowData(workbook, row);
+            list.add(rowData);
+        }
+        return list;
+    }
+
+    /**
+     * 获取该 sheet 行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始的数据，列数以第一行为准
+     *
+     * @param workbook         工作簿
+     * @param sheet            表
+     * @param startRowIndex    开始行下标
+     * @param startColumnIndex 开始列下标
+     * @return sheet 的 行下标从 startRowIndex 开始，列下标从 startColumnIndex 开始的所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> getSheetData(Workbook workbook, Sheet sheet, int startRowIndex, int startColumnIndex) throws IOException {
+        // 获取总行数
+        int rowNum = sheet.getPhysicalNumberOfRows();
+        // 获取第一行的总列数
+        int colNum = sheet.getRow(0).getPhysicalNumberOfCells();
+        return getSheetData(workbook, sheet, startRowIndex, rowNum, startColumnIndex, colNum);
+    }
+
+    /**
+     * 获取该 sheet 的指定行列的数据[startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex)
+     *
+     * @param workbook         工作簿
+     * @param sheet            表
+     * @param startRowIndex    开始行下标
+     * @param endRowIndex      结束行下标 + 1
+     * @param startColumnIndex 开始列下标
+     * @param endColumnIndex   结束列下标 + 1
+     * @return sheet 的区间 [startRowIndex, endRowIndex), [startColumnIndex, endColumnIndex) 内所有数据
+     * @throws IOException IO 异常
+     */
+    public static List<List<Object>> getSheetData(Workbook workbook, Sheet sheet, int startRowIndex, int endRowIndex,
+                                                  int startColumnIndex, int endColumnIndex) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        if (startRowIndex > endRowIndex || startColumnIndex > endColumnIndex) {
+            return list;
+        }
+
+        // 获取总行数
+        int rowNum = sheet.getPhysicalNumberOfRows();
+        // 第一行总列数
+        int colNum = sheet.getRow(0).getPhysicalNumberOfCells();
+
+        if (endRowIndex > rowNum) {
+            throw new IOException("行的最大下标索引超过了该sheet实际总行数(包括标题行)" + rowNum);
+        }
+        if (endColumnIndex > colNum) {
+            throw new IOException("列的最大下标索引超过了实际标题总列数" + colNum);
+        }
+        for (int i = startRowIndex; i < endRowIndex; i++) {
+            Row row = sheet.getRow(i);
+            // 整行都空，就跳过
+            if (isBlankRow(workbook, row)) {
+                continue;
+            }
+            List<Object> rowData = getRowData(workbook, row, startColumnIndex, endColumnIndex);
+            list.add(rowData);
+        }
+        return list;
+    }
+
+    /**
+     * 根据指定列区间获取行的数据
+     *
+     * @param workbook         工作簿
+     * @param row              行
+     * @param startColumnIndex 开始列下标
+     * @param endColumnIndex   结束列下标 + 1
+     * @return row 行 [startColumnIndex, endColumnIndex) 内所有数据
+     */
+    public static List<Object> getRowData(Workbook workbook, Row row, int startColumnIndex, int endColumnIndex) {
+        List<Object> rowData = new ArrayList<>();
+        for (int j = startColumnIndex; j < endColumnIndex; j++) {
+            Cell cell = row.getCell(j);
+            rowData.add(getCellValue(cell));
+        }
+        return rowData;
+    }
+
+    /**
+     * 判断整行是不是都为空
+     *
+     * @param row 行
+     * @return true：全为空；false：不全为空
+     */
+    public static boolean isBlankRow(Workbook workbook, Row row) {
+        boolean allRowIsBlank = true;
+        Iterator<Cell> cellIterator = row.cellIterator();
+        while (cellIterator.hasNext()) {
+            Object cellValue = getCellValue(cellIterator.next());
+            if (cellValue != null && !"".equals(cellValue)) {
+                allRowIsBlank = false;
+                break;
+            }
+        }
+        return allRowIsBlank;
+    }
+
+    /**
+     * 获取行的数据
+     *
+     * @param workbook 工作簿
+     * @param row 行
+     * @return row 行的所有数据
+     */
+    public static List<Object> getRowData(Workbook workbook, Row row) {
+        List<Object> rowData = new ArrayList<>();
+        /**
+         * 不建议用row.cellIterator(), 因为空列会被跳过， 后面的列会前移， 建议用for循环， row.getLastCellNum()是获取最后一个不为空的列是第几个
+         * 结论：空行可以跳过， 空列最好不要跳过
+         */
+        for (int i = 0; i < row.getLastCellNum(); i++) {
+            Cell cell = row.getCell(i);
+            Object cellValue = getCellValue(cell);
+            rowData.add(cellValue);
+        }
+        return rowData;
+    }
+
+    /**
+     * 获取单元格值
+     *
+     * @param cell 单元格
+     * @return 单元格值对应的 java对象
+     */
+    public static Object getCellValue(Cell cell) {
+        if (cell == null || (CellType.STRING.equals(cell.getCellType()) && StringUtils.isBlank(cell.getStringCellValue()))) {
+            return null;
+        }
+
+        switch (cell.getCellType()) {
+            case BLANK:
+                return null;
+            case BOOLEAN:
+                return cell.getBooleanCellValue();
+            case ERROR:
+                return cell.getErrorCellValue();
+            case FORMULA:
+                return cell.getNumericCellValue();
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return cell.getDateCellValue();
+                }
+                return getNumericValue(cell.getNumericCellValue(), cell.getCellStyle().getDataFormatString());
+            case STRING:
+                String value = cell.getStringCellValue();
+                if (StringUtils.isBlank(value)) {
+                    return null;
+                } else {
+                    return value;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 获取非日期格式的数字单元格值，文本格式和常规格式的数字转为不带小数的字符串
+     *
+     * @param value        数字
+     * @param formatString 单元格的数据格式
+     * @return 单元格值对应的 java对象
+     */
+    public static Object getNumericValue(double value, String formatString) {
+        if ("@".equals(formatString) || "General".equals(formatString)) {
+            // 格式化数字
+            DecimalFormat decimalFormat = new DecimalFormat("0");
+            String text = decimalFormat.format(value);
+            if (StringUtils.isBlank(text)) {
+                return null;
+            }
+            return text;
+        }
+        return value;
+    }
+
+    /**
+     * 判断行数据是不是都为空
+     *
+     * @param rowData 行数据
+     * @return true：全为空；false：不全为空
+     */
+    private static boolean isBlankRowData(List<Object> rowData) {
+        for (Object cellValue : rowData) {
+            if (cellValue != null && !"".equals(cellValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取 UTF-8 编码的 csv 文件，跳过空行，空字段为 null
+     *
+     * @param inputStream 文件输入流
+     * @return 文件的所有数据（包含表头）
+     * @throws IOException IO 异常，包括文件内容不是合法的 UTF-8 编码（{@link java.nio.charset.MalformedInputException}）
+     * @see #readCsv(InputStream, Charset)
+     */
+    public static List<List<Object>> readCsv(InputStream inputStream) throws IOException {
+        return readCsv(inputStream, DEFAULT_CSV_CHARSET);
+    }
+
+    /**
+     * 按指定编码读取 csv 文件，跳过空行，空字段为 null<br>
+     * 中文环境下的 Excel 另存为的 csv 通常是 GBK 编码；无法按指定编码解码时抛出异常，而不是把乱码当作数据返回
+     *
+     * @param inputStream 文件输入流
+     * @param charset     文件的编码
+     * @return 文件的所有数据（包含表头）
+     * @throws IOException IO 异常，包括文件内容无法按 charset 解码（{@link java.nio.charset.MalformedInputException}）
+     */
+    public static List<List<Object>> readCsv(InputStream inputStream, Charset charset) throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        readCsv(inputStream, charset, (rowIndex, rowData) -> list.add(rowData));
+        return list;
+    }
+
+    /**
+     * csv 只有一个表，指定了其它 sheet 时与 xls、xlsx 一样报告 sheet 不存在，而不是返回唯一的表
+     *
+     * @param sheetIndex 表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName  表名
+     * @throws IOException sheetIndex 大于 0 或 sheetName 不为 null
+     */
+    private static void checkCsvSheet(int sheetIndex, String sheetName) throws IOException {
+        if (sheetIndex > 0 || sheetName != null) {
+            throw new IOException("不存在的sheet：" + (sheetName == null ? sheetIndex : sheetName));
+        }
+    }
+
+    /**
+     * 按指定编码读取 csv 文件，跳过空行，空字段为 null，每读完一个非空行就交给 rowHandler 处理
+     *
+     * @param inputStream 文件输入流
+     * @param charset     文件的编码
+     * @param rowHandler  行数据的处理器
+     * @throws IOException IO 异常，包括文件内容无法按 charset 解码和 rowHandler 抛出的异常
+     */
+    private static void readCsv(InputStream inputStream, Charset charset, RowHandler rowHandler) throws IOException {
+        // 解码器默认对非法和无法映射的字节报错，不替换为 U+FFFD
+        Reader reader = new BufferedReader(new InputStreamReader(inputStream, charset.newDecoder()));
+        List<Object> rowData = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int rowIndex = 0;
+        boolean quoted = false;
+        int c = reader.read();
+        // 跳过 BOM
+        if (c == '\uFEFF') {
+            c = reader.read();
+        }
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    c = reader.read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                rowData.add(StringUtils.isBlank(field) ? null : field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    c = reader.read();
+                    if (c != '\n') {
+                        addCsvRow(rowHandler, rowIndex++, rowData, field);
+                        rowData = new ArrayList<>();
+                        continue;
+                    }
+                }
+                addCsvRow(rowHandler, rowIndex++, rowData, field);
+                rowData = new ArrayList<>();
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        addCsvRow(rowHandler, rowIndex++, rowData, field);
+    }
+
+    /**
+     * 结束 csv 的一行，整行都空则跳过
+     *
+     * @param rowHandler 行数据的处理器
+     * @param rowIndex   当前行的下标
+     * @param rowData    当前行的数据
+     * @param field      当前行最后一个字段
+     * @throws IOException rowHandler 抛出的异常
+     */
+    private static void addCsvRow(RowHandler rowHandler, int rowIndex, List<Object> rowData, StringBuilder field) throws IOException {
+        rowData.add(StringUtils.isBlank(field) ? null : field.toString());
+        field.setLength(0);
+        if (!isBlankRowData(rowData)) {
+            rowHandler.handle(rowIndex, rowData);
+        }
+    }
+
+    /**
+     * @return 自动使用流式解析 xlsx 的文件大小阈值（字节）
+     */
+    public static long getStreamingThreshold() {
+        return streamingThreshold;
+    }
+
+    /**
+     * 设置自动使用流式解析 xlsx 的文件大小阈值：按文件路径读取时比较文件大小；从输入流读取时比较
+     * {@link ReadQuery#size(long)} 指定的字节数，未指定时除阈值为 0 外都按小文件处理。流式解析由读取扩展
+     * （excelutils-streaming）提供，没有时总是按对象模型读取
+     *
+     * @param streamingThreshold 自动使用流式解析 xlsx 的文件大小阈值（字节），0 表示总是使用流式解析
+     */
+    public static void setStreamingThreshold(long streamingThreshold) {
+        ExcelUtil.streamingThreshold = streamingThreshold;
+    }
+
+    /**
+     * @return 读写统计的监听器
+     */
+    public static ExcelMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param metrics 读写统计的监听器，为 null 时不统计
+     */
+    public static void setMetrics(ExcelMetrics metrics) {
+        ExcelUtil.metrics = metrics == null ? ExcelMetrics.NOOP : metrics;
+    }
+
+    /**
+     * @return 类路径上第一个 {@link ReadExtension} 的实现，没有时返回 {@link ReadExtension#DEFAULT}
+     */
+    private static ReadExtension loadReadExtension() {
+        Iterator<ReadExtension> iterator = ServiceLoader.load(ReadExtension.class, ExcelUtil.class.getClassLoader()).iterator();
+        return iterator.hasNext() ? iterator.next() : ReadExtension.DEFAULT;
+    }
+
+    /**
+     * @return 读取的扩展
+     */
+    public static ReadExtension getReadExtension() {
+        return readExtension;
+    }
+
+    /**
+     * @param readExtension 读取的扩展，为 null 时按对象模型读取
+     */
+    public static void setReadExtension(ReadExtension readExtension) {
+        ExcelUtil.readExtension = readExtension == null ? ReadExtension.DEFAULT : readExtension;
+    }
+
+    /**
+     * 读写统计的监听器，在读写线程中同步调用，实现应当尽快返回；默认不做任何事
+     */
+    public interface ExcelMetrics {
+        /**
+         * 不做任何事的监听器
+         */
+        ExcelMetrics NOOP = new ExcelMetrics() {
+        };
+
+        /**
+         * 打开 workbook（xlsx 流式读取时为打开压缩包）
+         *
+         * @param fileType 文件类型
+         * @param nanos    耗时（纳秒）
+         */
+        default void workbookOpened(String fileType, long nanos) {
+        }
+
+        /**
+         * 读完一个 sheet
+         *
+         * @param stats 读取统计
+         */
+        default void sheetRead(SheetReadStats stats) {
+        }
+
+        /**
+         * 写完一个 sheet（不包括最后写入文件）
+         *
+         * @param stats 写入统计
+         */
+        default void sheetWritten(SheetWriteStats stats) {
+        }
+
+        /**
+         * 把 workbook 写入文件，xlsx 即压缩打包
+         *
+         * @param fileType 文件类型
+         * @param bytes    文件字节数
+         * @param nanos    耗时（纳秒）
+         */
+        default void workbookWritten(String fileType, long bytes, long nanos) {
+        }
+    }
+
+    /**
+     * 一个 sheet 的读取统计
+     */
+    public static class SheetReadStats {
+        /**
+         * 文件类型
+         */
+        private final String fileType;
+
+        /**
+         * 表名，csv 为 null
+         */
+        private String sheetName;
+
+        /**
+         * 非空行数
+         */
+        private long rows;
+
+        /**
+         * 非空单元格数
+         */
+        private long cells;
+
+        /**
+         * 跳过的空行数
+         */
+        private long blankRows;
+
+        /**
+         * 被查询的过滤条件拒绝的行数，不计入空行；过滤条件先于空行判断
+         */
+        private long filteredRows;
+
+        /**
+         * 读取耗时（纳秒），不包括打开 workbook
+         */
+        private long nanos;
+
+        SheetReadStats(String fileType) {
+            this.fileType = fileType;
+        }
+
+        public String getFileType() {
+            return fileType;
+        }
+
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getCells() {
+            return cells;
+        }
+
+        public long getBlankRows() {
+            return blankRows;
+        }
+
+        public long getFilteredRows() {
+            return filteredRows;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return 每秒读取的行数
+         */
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        /**
+         * @return 每秒读取的单元格数
+         */
+        public double getCellsPerSecond() {
+            return nanos == 0 ? 0 : cells * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "SheetReadStats{fileType=" + fileType + ", sheetName=" + sheetName + ", rows=" + rows + ", cells=" + cells
+                    + ", blankRows=" + blankRows + ", filteredRows=" + filteredRows + ", nanos=" + nanos + "}";
+        }
+    }
+
+    /**
+     * 一个 sheet 的写入统计
+     */
+    public static class SheetWriteStats {
+        /**
+         * 表名
+         */
+        private final String sheetName;
+
+        /**
+         * 开始写入的时间（纳秒）
+         */
+        private final long startNanos = System.nanoTime();
+
+        /**
+         * 开始写入时已溢出到临时文件的字节数
+         */
+        private final long startTempBytes;
+
+        /**
+         * 开始写入时已刷出到临时文件的行数
+         */
+        private final long startFlushedRows;
+
+        /**
+         * 数据行数
+         */
+        private long rows;
+
+        /**
+         * 数据单元格数
+         */
+        private long cells;
+
+        /**
+         * 把行数据转换为单元格值的耗时（纳秒），流水线写入时为各转换线程的耗时之和
+         */
+        private long convertNanos;
+
+        /**
+         * 自动调整列宽的耗时（纳秒）
+         */
+        private long autosizeNanos;
+
+        /**
+         * SXSSF 写入过程中刷出到临时文件的行数
+         */
+        private long flushedRows;
+
+        /**
+         * 写入过程中溢出到临时文件的字节数
+         */
+        private long tempBytes;
+
+        /**
+         * 写入耗时（纳秒）
+         */
+        private long nanos;
+
+        SheetWriteStats(Sheet sheet) {
+            this.sheetName = sheet.getSheetName();
+            this.startTempBytes = getTempBytes(sheet);
+            this.startFlushedRows = getFlushedRows(sheet);
+        }
+
+        /**
+         * 结束统计
+         *
+         * @param sheet 页签
+         * @return this
+         */
+        SheetWriteStats finish(Sheet sheet) {
+            nanos = System.nanoTime() - startNanos;
+            tempBytes = getTempBytes(sheet) - startTempBytes;
+            flushedRows = getFlushedRows(sheet) - startFlushedRows;
+            return this;
+        }
+
+        /**
+         * @param sheet 页签
+         * @return sheet 所在 workbook 已溢出到临时文件的字节数
+         */
+        private static long getTempBytes(Sheet sheet) {
+            Workbook workbook = sheet.getWorkbook();
+            return workbook instanceof SpillCountingWorkbook ? ((SpillCountingWorkbook) workbook).spilledBytes.get() : 0;
+        }
+
+        /**
+         * @param sheet 页签
+         * @return sheet 已刷出到临时文件的行数
+         */
+        private static long getFlushedRows(Sheet sheet) {
+            Workbook workbook = sheet.getWorkbook();
+            return workbook instanceof SpillCountingWorkbook ? ((SpillCountingWorkbook) workbook).getFlushedRows(sheet) : 0;
+        }
+
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getCells() {
+            return cells;
+        }
+
+        public long getConvertNanos() {
+            return convertNanos;
+        }
+
+        public long getAutosizeNanos() {
+            return autosizeNanos;
+        }
+
+        public long getFlushedRows() {
+            return flushedRows;
+        }
+
+        public long getTempBytes() {
+            return tempBytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return 每秒写入的行数
+         */
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "SheetWriteStats{sheetName=" + sheetName + ", rows=" + rows + ", cells=" + cells + ", convertNanos=" + convertNanos
+                    + ", autosizeNanos=" + autosizeNanos + ", flushedRows=" + flushedRows + ", tempBytes=" + tempBytes
+                    + ", nanos=" + nanos + "}";
+        }
+    }
+
+    /**
+     * 以计时器和计数器记录读写统计的监听器，指标名与标签按 Micrometer 的习惯命名，如对接 Micrometer：
+     * <pre>
+     * ExcelUtil.setMetrics(new ExcelUtil.MeterRegistryMetrics(new ExcelUtil.MeterRecorder() {
+     *     public void recordTimer(String name, long nanos, String... tags) {
+     *         registry.timer(name, tags).record(nanos, TimeUnit.NANOSECONDS);
+     *     }
+     *
+     *     public void incrementCounter(String name, double amount, String... tags) {
+     *         registry.counter(name, tags).increment(amount);
+     *     }
+     * }));
+     * </pre>
+     */
+    public static class MeterRegistryMetrics implements ExcelMetrics {
+        /**
+         * 指标记录器
+         */
+        private final MeterRecorder recorder;
+
+        public MeterRegistryMetrics(MeterRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void workbookOpened(String fileType, long nanos) {
+            recorder.recordTimer("excel.workbook.open", nanos, "type", fileType);
+        }
+
+        @Override
+        public void sheetRead(SheetReadStats stats) {
+            String[] tags = {"type", stats.getFileType(), "sheet", StringUtils.defaultString(stats.getSheetName())};
+            recorder.recordTimer("excel.sheet.read", stats.getNanos(), tags);
+            recorder.incrementCounter("excel.sheet.read.rows", stats.getRows(), tags);
+            recorder.incrementCounter("excel.sheet.read.cells", stats.getCells(), tags);
+            recorder.incrementCounter("excel.sheet.read.blank.rows", stats.getBlankRows(), tags);
+            recorder.incrementCounter("excel.sheet.read.filtered.rows", stats.getFilteredRows(), tags);
+        }
+
+        @Override
+        public void sheetWritten(SheetWriteStats stats) {
+            String[] tags = {"sheet", StringUtils.defaultString(stats.getSheetName())};
+            recorder.recordTimer("excel.sheet.write", stats.getNanos(), tags);
+            recorder.recordTimer("excel.sheet.write.convert", stats.getConvertNanos(), tags);
+            recorder.recordTimer("excel.sheet.write.autosize", stats.getAutosizeNanos(), tags);
+            recorder.incrementCounter("excel.sheet.write.rows", stats.getRows(), tags);
+            recorder.incrementCounter("excel.sheet.write.cells", stats.getCells(), tags);
+            recorder.incrementCounter("excel.sxssf.flushed.rows", stats.getFlushedRows(), tags);
+            recorder.incrementCounter("excel.sxssf.temp.bytes", stats.getTempBytes(), tags);
+        }
+
+        @Override
+        public void workbookWritten(String fileType, long bytes, long nanos) {
+            recorder.recordTimer("excel.workbook.write", nanos, "type", fileType);
+            recorder.incrementCounter("excel.workbook.write.bytes", bytes, "type", fileType);
+        }
+    }
+
+    /**
+     * 指标记录器，对应 Micrometer 的 Timer 和 Counter
+     */
+    public interface MeterRecorder {
+        /**
+         * 记录一次耗时
+         *
+         * @param name  指标名
+         * @param nanos 耗时（纳秒）
+         * @param tags  标签，键值交替
+         */
+        void recordTimer(String name, long nanos, String... tags);
+
+        /**
+         * 增加计数
+         *
+         * @param name   指标名
+         * @param amount 增量
+         * @param tags   标签，键值交替
+         */
+        void incrementCounter(String name, double amount, String... tags);
+    }
+
+    /**
+     * 利用JAVA的反射机制，将放置在JAVA集合中并且符号一定条件的数据以EXCEL 的形式输出到指定IO设备上<br>
+     * 用于单个sheet
+     *
+     * @param <T>      数据类型
+     * @param headers  表格属性列名数组
+     * @param dataset  需要显示的数据集合,集合中一定要放置符合javabean风格的类的对象。此方法支持的
+     *                 javabean属性的数据类型有基本数据类型及String,Date,String[],Double[]
+     * @param filePath excel文件输出路径
+     */
+    public static <T> void exportExcel(String[] headers, Collection<T> dataset, String filePath) {
+        exportExcel(headers, dataset, filePath, null);
+    }
+
+    /**
+     * 利用JAVA的反射机制，将放置在JAVA集合中并且符号一定条件的数据以EXCEL 的形式输出到指定IO设备上<br>
+     * 用于单个sheet
+     *
+     * @param <T>
+     * @param headers  表格属性列名数组
+     * @param dataset  需要显示的数据集合,集合中一定要放置符合javabean风格的类的对象。此方法支持的
+     *                 javabean属性的数据类型有基本数据类型及String,Date,String[],Double[]
+     * @param filePath excel文件输出路径
+     * @param pattern  如果有时间数据，设定输出格式。默认为"yyy-MM-dd"
+     */
+    public static <T> void exportExcel(String[] headers, Collection<T> dataset, String filePath, String pattern) {
+        Workbook workbook = null;
+        try {
+            // 声明一个工作薄
+            workbook = getExportWorkbook(filePath);
+            // 生成一个表格
+            Sheet sheet = workbook.createSheet();
+
+            write2Sheet(sheet, headers, dataset, pattern);
+            writeWorkbook(workbook, new File(filePath));
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.error(e.toString(), e);
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+    }
+
+    /**
+     * 导出数据到Excel文件
+     *
+     * @param dataList 要输出到Excel文件的数据集
+     * @param filePath excel文件输出路径
+     */
+    public static void exportExcel(String[][] dataList, String filePath) {
+        Workbook workbook = null;
+        try {
+            // 声明一个工作薄
+            workbook = getExportWorkbook(filePath);
+            // 生成一个表格
+            Sheet sheet = workbook.createSheet();
+            // 第一行作为表头，行数超出 sheet 的行数上限时换 sheet 并重复表头
+            if (dataList.length > 0) {
+                SheetRoller roller = new SheetRoller(sheet, dataList[0], ExportContext.DEFAULT, new StyleRegistry(ExportContext.DEFAULT), 1, true);
+                for (int i = 1; i < dataList.length; i++) {
+                    String[] r = dataList[i];
+                    for (int j = 0; j < r.length; j++) {
+                        // cell max length 32767
+                        if (r[j] != null && r[j].length() > 32767) {
+                            LOGGER.warn("异常处理", "--此字段过长(超过32767),已被截断--" + r[j]);
+                            r[j] = r[j].substring(0, 32766);
+                        }
+                    }
+                    roller.write(r);
+                }
+                roller.finish();
+            }
+            writeWorkbook(workbook, new File(filePath));
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.error("#exportExcel error.", e);
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+    }
+
+    /**
+     * 利用JAVA的反射机制，将放置在JAVA集合中并且符号一定条件的数据以EXCEL 的形式输出到指定IO设备上<br>
+     * 用于多个sheet
+     *
+     * @param sheets   ExcelSheet的集体
+     * @param filePath excel文件路径
+     */
+    public static <T> void exportExcel(List<ExcelSheet<T>> sheets, String filePath) {
+        exportExcelWithContext(sheets, filePath, ExportContext.DEFAULT);
+    }
+
+    /**
+     * 利用JAVA的反射机制，将放置在JAVA集合中并且符号一定条件的数据以EXCEL 的形式输出到指定IO设备上<br>
+     * 用于多个sheet
+     *
+     * @param sheets   ExcelSheet的集合
+     * @param filePath excel文件输出路径
+     * @param pattern  如果有时间数据，设定输出格式。默认为"yyy-MM-dd"
+     */
+    public static <T> void exportExcel(List<ExcelSheet<T>> sheets, String filePath, String pattern) {
+        exportExcelWithContext(sheets, filePath, ExportContext.of(pattern));
+    }
+
+    /**
+     * 利用JAVA的反射机制，将放置在JAVA集合中并且符号一定条件的数据以EXCEL 的形式输出到指定IO设备上<br>
+     * 用于多个sheet
+     *
+     * @param sheets   ExcelSheet的集合
+     * @param filePath excel文件输出路径
+     * @param context  导出的格式设置
+     */
+    public static <T> void exportExcelWithContext(List<ExcelSheet<T>> sheets, String filePath, ExportContext context) {
+        if (CollectionUtils.isEmpty(sheets)) {
+            return;
+        }
+        try {
+            createExcel(sheets, new File(filePath), context);
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.error("#exportExcel error.", e);
+        }
+    }
+
+    /**
+     * 导出到新文件，用于多个sheet
+     *
+     * @param sheets  ExcelSheet的集合
+     * @param file    excel文件
+     * @param context 导出的格式设置
+     * @throws IOException IO 异常
+     */
+    public static <T> void createExcel(List<ExcelSheet<T>> sheets, File file, ExportContext context) throws IOException {
+        // 声明一个工作薄
+        Workbook workbook = getExportWorkbook(file.getPath());
+        StyleRegistry styles = new StyleRegistry(context);
+        try {
+            for (ExcelSheet<T> sheetInfo : sheets) {
+                // 生成一个表格
+                Sheet sheet = workbook.createSheet(sheetInfo.getSheetName());
+                write2Sheet(sheet, sheetInfo.getHeaders(), sheetInfo.getDataset(), context, styles, null);
+            }
+            writeWorkbook(workbook, file);
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+    }
+
+    /**
+     * 分文件导出，用于多个sheet：数据按行数拆分为多个 excel 文件，打包写入 zip 输出流（如 HTTP 响应）<br>
+     * 每个文件写满 maxRowsPerFile 个数据行后写入 zip，在新文件中新建同名 sheet、重复表头后继续写入；
+     * 同一时间只有一个文件在内存中（xlsx 只保留窗口内的行），任意行数的导出都只需要遍历一次数据集。
+     * xls 不能流式写入，行数较多时应使用这种方式导出
+     *
+     * @param sheets         ExcelSheet的集合
+     * @param fileName       文件名，如 audit.xlsx，后缀决定文件格式；zip 中的文件依次命名为 audit-1.xlsx、audit-2.xlsx……
+     * @param outputStream   zip 的输出流，写完后不关闭
+     * @param context        导出的格式设置，每个文件内仍按 sheet 的行数上限换 sheet
+     * @param maxRowsPerFile 每个文件的数据行数上限（不含表头）
+     * @return zip 中的文件个数
+     * @throws IOException IO 异常
+     */
+    public static <T> int exportExcelZip(List<ExcelSheet<T>> sheets, String fileName, OutputStream outputStream, ExportContext context,
+                                         int maxRowsPerFile) throws IOException {
+        if (maxRowsPerFile <= 0) {
+            throw new IllegalArgumentException("maxRowsPerFile 必须大于 0");
+        }
+        // 后缀不支持时抛出异常
+        Workbook workbook = getExportWorkbook(fileName, new AtomicLong());
+        String name = new File(fileName).getName();
+        String extension = getExtension(new File(name));
+        String baseName = name.substring(0, name.length() - extension.length() - 1);
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        // 每个文件的 workbook 各自创建一次样式
+        StyleRegistry styles = new StyleRegistry(context);
+        int fileCount = 0;
+        try {
+            int fileRows = 0;
+            if (sheets != null) {
+                for (ExcelSheet<T> sheetInfo : sheets) {
+                    String[] headers = sheetInfo.getHeaders();
+                    SheetRoller roller = new SheetRoller(createSheet(workbook, sheetInfo.getSheetName()), headers, context, styles, 1, true);
+                    for (T t : sheetInfo.getDataset()) {
+                        if (fileRows == maxRowsPerFile) {
+                            roller.finish();
+                            writeZipEntry(zip, baseName + "-" + (++fileCount) + "." + extension, workbook);
+                            workbook = getExportWorkbook(fileName, new AtomicLong());
+                            fileRows = 0;
+                            roller = new SheetRoller(createSheet(workbook, sheetInfo.getSheetName()), headers, context, styles, 1, true);
+                        }
+                        long start = System.nanoTime();
+                        Object[] values = convertRow(t, headers, context);
+                        roller.stats.convertNanos += System.nanoTime() - start;
+                        roller.write(values);
+                        fileRows++;
+                    }
+                    roller.finish();
+                }
+            }
+            writeZipEntry(zip, baseName + "-" + (++fileCount) + "." + extension, workbook);
+            zip.finish();
+            return fileCount;
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+    }
+
+    /**
+     * 新建 sheet
+     *
+     * @param workbook  工作簿
+     * @param sheetName 表名，为 null 时使用默认的表名
+     * @return sheet
+     */
+    private static Sheet createSheet(Workbook workbook, String sheetName) {
+        return sheetName == null ? workbook.createSheet() : workbook.createSheet(sheetName);
+    }
+
+    /**
+     * 把 workbook 作为一个文件写入 zip，写入后释放 workbook 的临时文件
+     *
+     * @param zip      zip 输出流
+     * @param name     文件名
+     * @param workbook 工作簿
+     * @throws IOException IO 异常
+     */
+    private static void writeZipEntry(ZipOutputStream zip, String name, Workbook workbook) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        try {
+            writeWorkbook(workbook, zip);
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+        zip.closeEntry();
+    }
+
+    /**
+     * 异步导出，用于多个sheet：在导出线程池中执行，立即返回导出任务
+     *
+     * @param sheets   ExcelSheet的集合
+     * @param filePath excel文件输出路径
+     * @return 导出任务
+     */
+    public static <T> ExportJob exportExcelAsync(List<ExcelSheet<T>> sheets, String filePath) {
+        return exportExcelAsyncWithContext(sheets, filePath, ExportContext.DEFAULT);
+    }
+
+    /**
+     * 异步导出，用于多个sheet：在导出线程池中执行，立即返回导出任务<br>
+     * 同时执行的导出任务数不超过 {@link #setExportConcurrency(int)} 设定的个数，其余任务排队等待；
+     * 排队的任务数超过 {@link #setExportQueueCapacity(int)} 设定的个数时直接拒绝，任务的 future 以 {@link RejectedExecutionException} 完成<br>
+     * 先写入同目录下的临时文件，完成后再替换导出的文件；导出失败或被取消时删除临时文件，已有的同名文件不受影响，
+     * 并通过任务的 future 传递异常
+     *
+     * @param sheets   ExcelSheet的集合
+     * @param filePath excel文件输出路径
+     * @param pattern  如果有时间数据，设定输出格式。默认为"yyy-MM-dd"
+     * @return 导出任务
+     */
+    public static <T> ExportJob exportExcelAsync(List<ExcelSheet<T>> sheets, String filePath, String pattern) {
+        return exportExcelAsyncWithContext(sheets, filePath, ExportContext.of(pattern));
+    }
+
+    /**
+     * 异步导出，用于多个sheet：在导出线程池中执行，立即返回导出任务
+     *
+     * @param sheets   ExcelSheet的集合
+     * @param filePath excel文件输出路径
+     * @param context  导出的格式设置，可以在多个导出任务之间共享
+     * @return 导出任务
+     * @see #exportExcelAsync(List, String, String)
+     */
+    public static <T> ExportJob exportExcelAsyncWithContext(List<ExcelSheet<T>> sheets, String filePath, ExportContext context) {
+        ExportJob job = new ExportJob(new File(filePath));
+        // 排队的任务各自持有数据集，限制排队的任务数，避免一批大任务耗尽堆内存
+        int capacity = exportConcurrency + exportQueueCapacity;
+        if (pendingExports.incrementAndGet() > capacity) {
+            pendingExports.decrementAndGet();
+            job.future.completeExceptionally(new RejectedExecutionException("排队的导出任务数已达上限：" + exportQueueCapacity));
+            return job;
+        }
+        try {
+            getExportExecutor().execute(() -> {
+                try {
+                    runExportJob(job, sheets, context);
+                } finally {
+                    pendingExports.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingExports.decrementAndGet();
+            job.future.completeExceptionally(e);
+        }
+        return job;
+    }
+
+    /**
+     * 执行导出任务
+     *
+     * @param job     导出任务
+     * @param sheets  ExcelSheet的集合
+     * @param context 导出的格式设置
+     */
+    private static <T> void runExportJob(ExportJob job, List<ExcelSheet<T>> sheets, ExportContext context) {
+        Workbook workbook = null;
+        File tempFile = null;
+        try {
+            job.checkCancelled();
+            workbook = getExportWorkbook(job.file.getPath(), job.bytesSpilled);
+            if (sheets != null) {
+                StyleRegistry styles = new StyleRegistry(context);
+                for (ExcelSheet<T> sheetInfo : sheets) {
+                    // 生成一个表格
+                    Sheet sheet = workbook.createSheet(sheetInfo.getSheetName());
+                    write2Sheet(sheet, sheetInfo.getHeaders(), sheetInfo.getDataset(), context, styles, job);
+                }
+            }
+            job.checkCancelled();
+            // 写完后再替换导出的文件，失败或取消时不影响已有的同名文件
+            tempFile = File.createTempFile(job.file.getName(), ".tmp", job.file.getAbsoluteFile().getParentFile());
+            writeWorkbook(workbook, tempFile);
+            job.commit(tempFile);
+            job.future.complete(job.file);
+        } catch (Throwable e) {
+            job.future.completeExceptionally(e);
+        } finally {
+            if (tempFile != null) {
+                deleteTempFile(tempFile);
+            }
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+    }
+
+    /**
+     * 获取导出线程池，首次使用时创建
+     *
+     * @return 导出线程池
+     */
+    private static ExecutorService getExportExecutor() {
+        ThreadPoolExecutor executor = exportExecutor;
+        if (executor == null) {
+            synchronized (ExcelUtil.class) {
+                if (exportExecutor == null) {
+                    exportExecutor = createExportExecutor(exportConcurrency);
+                }
+                executor = exportExecutor;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 创建导出线程池：线程数固定为同时执行的任务数上限，其余任务在队列中排队，排队时不占用线程，空闲线程超时后回收<br>
+     * 队列的容量随 {@link #setExportQueueCapacity(int)} 变化，提交任务前按 {@link #pendingExports} 限制
+     *
+     * @param concurrency 同时执行的任务数上限
+     * @return 导出线程池
+     */
+    private static ThreadPoolExecutor createExportExecutor(int concurrency) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "excel-export-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 设置同时执行的异步导出任务数上限，立即生效：调小时正在执行的任务继续执行，
+     * 排队的任务等到执行中的任务数低于新的上限后才开始
+     *
+     * @param exportConcurrency 同时执行的异步导出任务数上限
+     */
+    public static void setExportConcurrency(int exportConcurrency) {
+        if (exportConcurrency <= 0) {
+            throw new IllegalArgumentException("exportConcurrency 必须大于 0");
+        }
+        synchronized (ExcelUtil.class) {
+            ExcelUtil.exportConcurrency = exportConcurrency;
+            ThreadPoolExecutor executor = exportExecutor;
+            if (executor == null) {
+                return;
+            }
+            // 核心线程数不能大于最大线程数，调大时先调最大线程数，调小时先调核心线程数
+            if (exportConcurrency > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(exportConcurrency);
+                executor.setCorePoolSize(exportConcurrency);
+            } else {
+                executor.setCorePoolSize(exportConcurrency);
+                executor.setMaximumPoolSize(exportConcurrency);
+            }
+        }
+    }
+
+    /**
+     * @return 排队等待执行的异步导出任务数上限
+     */
+    public static int getExportQueueCapacity() {
+        return exportQueueCapacity;
+    }
+
+    /**
+     * 设置排队等待执行的异步导出任务数上限，立即生效：已经排队的任务不受影响，
+     * 之后提交的任务在排队的任务数达到上限时直接拒绝，默认为 {@value #DEFAULT_EXPORT_QUEUE_CAPACITY}
+     *
+     * @param exportQueueCapacity 排队等待执行的异步导出任务数上限，为 0 时不排队
+     */
+    public static void setExportQueueCapacity(int exportQueueCapacity) {
+        if (exportQueueCapacity < 0) {
+            throw new IllegalArgumentException("exportQueueCapacity 不能小于 0");
+        }
+        ExcelUtil.exportQueueCapacity = exportQueueCapacity;
+    }
+
+    /**
+     * 异步导出任务：可获取进度、取消任务，通过 {@link #getFuture()} 获取结果或异常
+     */
+    public static class ExportJob {
+        /**
+         * 导出的文件
+         */
+        private final File file;
+
+        /**
+         * 导出结果，成功时为导出的文件
+         */
+        private final CompletableFuture<File> future = new CompletableFuture<>();
+
+        /**
+         * 已写入的数据行数
+         */
+        private final AtomicLong rowsWritten = new AtomicLong();
+
+        /**
+         * xlsx 溢出到临时文件的字节数
+         */
+        private final AtomicLong bytesSpilled = new AtomicLong();
+
+        /**
+         * 是否已开始替换导出的文件，之后不能再取消
+         */
+        private boolean committed;
+
+        ExportJob(File file) {
+            this.file = file;
+        }
+
+        /**
+         * @return 导出的文件
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return 导出结果，成功时为导出的文件，失败时为导出异常，取消时为 {@link CancellationException}
+         */
+        public CompletableFuture<File> getFuture() {
+            return future;
+        }
+
+        /**
+         * @return 已写入的数据行数
+         */
+        public long getRowsWritten() {
+            return rowsWritten.get();
+        }
+
+        /**
+         * @return xlsx 溢出到临时文件的字节数
+         */
+        public long getBytesSpilled() {
+            return bytesSpilled.get();
+        }
+
+        /**
+         * 取消导出，导出线程在写入下一行前停止并删除临时文件，已有的同名文件不受影响
+         *
+         * @return 是否取消成功，任务已完成或已开始替换导出的文件时返回 false
+         */
+        public synchronized boolean cancel() {
+            return !committed && future.cancel(false);
+        }
+
+        /**
+         * @return 是否已取消
+         */
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        /**
+         * 已取消时抛出 {@link CancellationException}
+         */
+        void checkCancelled() {
+            if (future.isCancelled()) {
+                throw new CancellationException("导出已取消：" + file.getPath());
+            }
+        }
+
+        /**
+         * 用写好的临时文件替换导出的文件，已取消时不替换
+         *
+         * @param tempFile 写好的临时文件
+         * @throws IOException 替换失败
+         */
+        void commit(File tempFile) throws IOException {
+            synchronized (this) {
+                checkCancelled();
+                committed = true;
+            }
+            replaceFile(tempFile, file);
+        }
+    }
+
+    /**
+     * 统计溢出到临时文件字节数和各 sheet 刷出行数的 SXSSFWorkbook
+     */
+    private static class SpillCountingWorkbook extends SXSSFWorkbook {
+        /**
+         * 溢出到临时文件的字节数
+         */
+        private final AtomicLong spilledBytes;
+
+        /**
+         * 各 sheet 的临时文件写入器
+         */
+        private final Map<Sheet, SheetDataWriter> sheetDataWriters = new IdentityHashMap<>();
+
+        /**
+         * 最近创建的临时文件写入器，创建 sheet 时先创建写入器
+         */
+        private SheetDataWriter lastSheetDataWriter;
+
+        SpillCountingWorkbook(int rowAccessWindowSize, AtomicLong spilledBytes) {
+            super(rowAccessWindowSize);
+            this.spilledBytes = spilledBytes;
+        }
+
+        @Override
+        protected SheetDataWriter createSheetDataWriter() throws IOException {
+            final AtomicLong counter = spilledBytes;
+            lastSheetDataWriter = new SheetDataWriter(getSharedStringSource()) {
+                @Override
+                protected OutputStream decorateOutputStream(FileOutputStream fos) {
+                    return new CountingOutputStream(fos, counter);
+                }
+            };
+            return lastSheetDataWriter;
+        }
+
+        @Override
+        public SXSSFSheet createSheet() {
+            SXSSFSheet sheet = super.createSheet();
+            sheetDataWriters.put(sheet, lastSheetDataWriter);
+            return sheet;
+        }
+
+        @Override
+        public SXSSFSheet createSheet(String sheetname) {
+            SXSSFSheet sheet = super.createSheet(sheetname);
+            sheetDataWriters.put(sheet, lastSheetDataWriter);
+            return sheet;
+        }
+
+        /**
+         * @param sheet 页签
+         * @return 已刷出到临时文件的行数
+         */
+        int getFlushedRows(Sheet sheet) {
+            SheetDataWriter writer = sheetDataWriters.get(sheet);
+            return writer == null ? 0 : writer.getNumberOfFlushedRows();
+        }
+    }
+
+    /**
+     * 统计写入字节数的输出流
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        /**
+         * 写入的字节数
+         */
+        private final AtomicLong count;
+
+        CountingOutputStream(OutputStream out, AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+    }
+
+    /**
+     * 用临时文件替换目标文件
+     *
+     * @param tempFile 临时文件
+     * @param target   目标文件
+     * @throws IOException IO 异常
+     */
+    public static void replaceFile(File tempFile, File target) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 删除临时文件，删除失败（如 Windows 下内存映射未释放）则在虚拟机退出时删除
+     *
+     * @param file 临时文件
+     */
+    public static void deleteTempFile(File file) {
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 每个sheet的写入
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     * @param dataset 数据集合
+     * @param pattern 日期格式
+     */
+    public static <T> void write2Sheet(Sheet sheet, String[] headers, Collection<T> dataset, String pattern) {
+        ExportContext context = ExportContext.of(pattern);
+        write2Sheet(sheet, headers, dataset, context, new StyleRegistry(context), null);
+    }
+
+    /**
+     * 每个sheet的写入，行数超出 sheet 的行数上限时在同一 workbook 中新建 sheet 继续写入
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     * @param dataset 数据集合
+     * @param context 导出的格式设置
+     * @see ExportContext#withMaxRowsPerSheet(int)
+     */
+    public static <T> void write2SheetWithContext(Sheet sheet, String[] headers, Collection<T> dataset, ExportContext context) {
+        write2Sheet(sheet, headers, dataset, context, new StyleRegistry(context), null);
+    }
+
+    /**
+     * 每个sheet的写入，多个 sheet 共用同一次导出的单元格样式
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     * @param dataset 数据集合
+     * @param context 导出的格式设置
+     * @param styles  本次导出的单元格样式
+     */
+    public static <T> void write2Sheet(Sheet sheet, String[] headers, Collection<T> dataset, ExportContext context, StyleRegistry styles) {
+        write2Sheet(sheet, headers, dataset, context, styles, null);
+    }
+
+    /**
+     * 每个sheet的写入，并向导出任务报告进度、响应取消
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     * @param dataset 数据集合
+     * @param context 导出的格式设置
+     * @param styles  本次导出的单元格样式
+     * @param job     导出任务，为 null 时不报告进度
+     */
+    private static <T> void write2Sheet(Sheet sheet, String[] headers, Collection<T> dataset, ExportContext context, StyleRegistry styles,
+                                        ExportJob job) {
+        SheetRoller roller = new SheetRoller(sheet, headers, context, styles, 1, true);
+        writeRows(roller, headers, dataset, context, job);
+        roller.finish();
+    }
+
+    /**
+     * 写入表头行
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     */
+    private static void writeHeader(Sheet sheet, String[] headers) {
+        // 产生表格标题行
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headers[i]);
+        }
+        // SXSSF 只能对跟踪的列自动调整列宽
+        if (sheet instanceof SXSSFSheet) {
+            ((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+        }
+    }
+
+    /**
+     * 设定自动宽度
+     *
+     * @param sheet       页签
+     * @param columnCount 列数
+     * @param stats       写入统计
+     */
+    private static void autoSizeColumns(Sheet sheet, int columnCount, SheetWriteStats stats) {
+        long start = System.nanoTime();
+        for (int i = 0; i < columnCount; i++) {
+            sheet.autoSizeColumn(i);
+        }
+        stats.autosizeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * 在已有的 sheet 中从 startRowIndex 行开始追加数据行，不写表头
+     *
+     * @param sheet         页签
+     * @param headers       表头
+     * @param dataset       数据集合
+     * @param context       导出的格式设置
+     * @param styles        本次导出的单元格样式
+     * @param startRowIndex 第一个数据行的下标
+     * @return 追加的最后一个单元格的位置，没有追加数据行时返回 null
+     */
+    public static <T> CellReference appendRows(Sheet sheet, String[] headers, Collection<T> dataset, ExportContext context,
+                                                StyleRegistry styles, int startRowIndex) {
+        SheetRoller roller = new SheetRoller(sheet, headers, context, styles, startRowIndex, false);
+        writeRows(roller, headers, dataset, context, null);
+        roller.finish();
+        if (roller.rowIndex == startRowIndex || roller.columnCount == 0) {
+            return null;
+        }
+        return new CellReference(roller.rowIndex - 1, roller.columnCount - 1);
+    }
+
+    /**
+     * 把 workbook 写入文件，并向 {@link ExcelMetrics} 报告写入的字节数和耗时（xlsx 即压缩打包的耗时）
+     *
+     * @param workbook 工作簿
+     * @param file     文件
+     * @throws IOException IO 异常
+     */
+    public static void writeWorkbook(Workbook workbook, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeWorkbook(workbook, out);
+        }
+    }
+
+    /**
+     * 把 workbook 写入输出流，不关闭输出流，并向 {@link ExcelMetrics} 报告写入的字节数和耗时
+     *
+     * @param workbook     工作簿
+     * @param outputStream 输出流
+     * @throws IOException IO 异常
+     */
+    public static void writeWorkbook(Workbook workbook, OutputStream outputStream) throws IOException {
+        long start = System.nanoTime();
+        AtomicLong bytes = new AtomicLong();
+        OutputStream out = new CountingOutputStream(outputStream, bytes);
+        workbook.write(out);
+        out.flush();
+        metrics.workbookWritten(workbook instanceof HSSFWorkbook ? XLS : XLSX, bytes.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * 写入数据行
+     *
+     * @param roller  写入数据行的 sheet
+     * @param headers 表头
+     * @param dataset 数据集合
+     * @param context 导出的格式设置
+     * @param job     导出任务，为 null 时不报告进度
+     */
+    private static <T> void writeRows(SheetRoller roller, String[] headers, Collection<T> dataset, ExportContext context, ExportJob job) {
+        // 遍历集合数据，产生数据行
+        Iterator<T> it = dataset.iterator();
+        while (it.hasNext()) {
+            // 在行与行之间响应取消
+            if (job != null) {
+                job.checkCancelled();
+            }
+            long start = System.nanoTime();
+            Object[] values = convertRow(it.next(), headers, context);
+            roller.stats.convertNanos += System.nanoTime() - start;
+            roller.write(values);
+            if (job != null) {
+                job.rowsWritten.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 逐行写入数据的 sheet：新建的 sheet 写满行数上限后结束当前 sheet（自动调整列宽，xlsx 把内存中的行全部刷出到临时文件），
+     * 在同一 workbook 中新建 sheet 并重复表头后继续写入，内存中始终只有当前 sheet 窗口内的行<br>
+     * 追加到已有的 sheet 时不写表头、不换 sheet、不调整列宽
+     */
+    public static class SheetRoller {
+        /**
+         * sheet 名称的最大长度
+         */
+        private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+        private final String[] headers;
+
+        /**
+         * 是否为新建的 sheet
+         */
+        private final boolean newSheet;
+
+        /**
+         * 每个 sheet 最后一个数据行的下标
+         */
+        private final int lastRowIndex;
+
+        /**
+         * 数字单元格的样式
+         */
+        private final CellStyle numberStyle;
+
+        /**
+         * 第一个 sheet 的表名，后续 sheet 在其后加上序号
+         */
+        private final String sheetName;
+
+        private Sheet sheet;
+
+        /**
+         * 当前 sheet 的写入统计
+         */
+        private SheetWriteStats stats;
+
+        /**
+         * 下一个数据行的下标
+         */
+        private int rowIndex;
+
+        /**
+         * 已创建的 sheet 个数
+         */
+        private int sheetCount = 1;
+
+        /**
+         * 写入过的最大列数
+         */
+        private int columnCount;
+
+        /**
+         * @param sheet         第一个 sheet
+         * @param headers       表头
+         * @param context       导出的格式设置
+         * @param styles        本次导出的单元格样式
+         * @param startRowIndex 第一个数据行的下标
+         * @param newSheet      是否为新建的 sheet，新建的 sheet 先写表头
+         */
+        public SheetRoller(Sheet sheet, String[] headers, ExportContext context, StyleRegistry styles, int startRowIndex, boolean newSheet) {
+            Workbook workbook = sheet.getWorkbook();
+            int formatLastRowIndex = workbook.getSpreadsheetVersion().getLastRowIndex();
+            this.headers = headers;
+            this.newSheet = newSheet;
+            this.lastRowIndex = context.getMaxRowsPerSheet() > 0 ? Math.min(context.getMaxRowsPerSheet(), formatLastRowIndex) : formatLastRowIndex;
+            this.numberStyle = styles.getNumberStyle(workbook);
+            this.sheetName = sheet.getSheetName();
+            this.sheet = sheet;
+            this.stats = new SheetWriteStats(sheet);
+            this.rowIndex = startRowIndex;
+            if (newSheet) {
+                writeHeader(sheet, headers);
+            }
+        }
+
+        /**
+         * 写入一行，当前 sheet 已写满时先换 sheet
+         *
+         * @param values 单元格值
+         */
+        public void write(Object[] values) {
+            if (newSheet && rowIndex > lastRowIndex) {
+                finish();
+                Workbook workbook = sheet.getWorkbook();
+                sheet = workbook.createSheet(nextSheetName(workbook));
+                stats = new SheetWriteStats(sheet);
+                writeHeader(sheet, headers);
+                rowIndex = 1;
+            }
+            writeCells(sheet.createRow(rowIndex++), values, numberStyle);
+            columnCount = Math.max(columnCount, values.length);
+            stats.rows++;
+            stats.cells += values.length;
+        }
+
+        /**
+         * 结束当前 sheet 的写入
+         */
+        public void finish() {
+            if (newSheet) {
+                autoSizeColumns(sheet, headers.length, stats);
+                if (sheet instanceof SXSSFSheet) {
+                    try {
+                        ((SXSSFSheet) sheet).flushRows();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            metrics.sheetWritten(stats.finish(sheet));
+        }
+
+        /**
+         * 把在其它线程中转换单元格值的耗时计入当前 sheet 的写入统计
+         *
+         * @param nanos 耗时（纳秒）
+         */
+        public void addConvertNanos(long nanos) {
+            stats.convertNanos += nanos;
+        }
+
+        /**
+         * @return 下一个数据行的下标
+         */
+        public int getRowIndex() {
+            return rowIndex;
+        }
+
+        /**
+         * @return 写入过的最大列数
+         */
+        public int getColumnCount() {
+            return columnCount;
+        }
+
+        /**
+         * @param workbook 工作簿
+         * @return 不与已有 sheet 重名的表名，如 "明细 (2)"，超长时截断原表名
+         */
+        private String nextSheetName(Workbook workbook) {
+            String name;
+            do {
+                name = getSheetName(sheetName, ++sheetCount);
+            } while (workbook.getSheet(name) != null);
+            return name;
+        }
+
+        /**
+         * @param sheetName   第一个 sheet 的表名
+         * @param sheetNumber sheet 的序号
+         * @return 加上序号的表名，如 "明细 (2)"，超长时截断原表名
+         */
+        public static String getSheetName(String sheetName, int sheetNumber) {
+            String suffix = " (" + sheetNumber + ")";
+            return StringUtils.left(sheetName, MAX_SHEET_NAME_LENGTH - suffix.length()) + suffix;
+        }
+    }
+
+    /**
+     * 一次导出的单元格样式：每个 workbook 的数字样式只创建一次，所有 sheet（包括换出的 sheet）共用，
+     * 多个 sheet 的导出不会创建多个相同的样式（xls 最多 4000 个样式）<br>
+     * 只记住当前写入的 workbook，分文件导出换 workbook 时为新的 workbook 创建样式，不持有已写完的 workbook；
+     * 随导出调用创建，只在写入 workbook 的线程中使用
+     */
+    public static class StyleRegistry {
+        /**
+         * 导出的格式设置
+         */
+        private final ExportContext context;
+
+        /**
+         * 当前写入的工作簿
+         */
+        private Workbook workbook;
+
+        /**
+         * 当前工作簿中数字单元格的样式
+         */
+        private CellStyle numberStyle;
+
+        public StyleRegistry(ExportContext context) {
+            this.context = context;
+        }
+
+        /**
+         * @param workbook 工作簿
+         * @return 数字单元格的样式，没有设置数字格式时返回 null
+         */
+        CellStyle getNumberStyle(Workbook workbook) {
+            if (this.workbook != workbook) {
+                this.workbook = workbook;
+                this.numberStyle = context.createNumberStyle(workbook);
+            }
+            return numberStyle;
+        }
+    }
+
+    /**
+     * 导出的格式设置：日期格式、时区、数字格式、每个 sheet 的行数上限，不可变，可以在多个线程、多个导出之间共享<br>
+     * 日期使用不可变的 {@link DateTimeFormatter}，支持 Date、Instant、LocalDate、LocalDateTime、ZonedDateTime、OffsetDateTime，
+     * 不需要每个单元格创建一个 SimpleDateFormat，其它 java.time 类型（如 LocalTime、YearMonth）按 toString() 写入；
+     * 数字格式的单元格样式在每次导出中每个 workbook 只创建一次（各 sheet 和换出的 sheet 共用）
+     */
+    public static final class ExportContext {
+        /**
+         * 默认设置：日期格式 yyyy-MM-dd，系统默认时区，数字不设置格式，sheet 行数达到文件格式的上限时换 sheet
+         */
+        public static final ExportContext DEFAULT = new ExportContext(DEFAULT_DATE_PATTERN, ZoneId.systemDefault(), null, 0);
+
+        /**
+         * 日期格式
+         */
+        private final String pattern;
+
+        /**
+         * 日期格式对应的格式化器
+         */
+        private final DateTimeFormatter formatter;
+
+        /**
+         * Date、Instant 转换为日期时间时使用的时区
+         */
+        private final ZoneId zone;
+
+        /**
+         * 数字单元格的格式，如 "#,##0.00"，为 null 时不设置格式
+         */
+        private final String numberFormat;
+
+        /**
+         * 每个 sheet 的数据行数上限（不含表头），0 表示文件格式的上限（xls 65535 行，xlsx 1048575 行）
+         */
+        private final int maxRowsPerSheet;
+
+        private ExportContext(String pattern, ZoneId zone, String numberFormat, int maxRowsPerSheet) {
+            this.pattern = pattern;
+            this.formatter = DateTimeFormatter.ofPattern(pattern);
+            this.zone = zone;
+            this.numberFormat = numberFormat;
+            this.maxRowsPerSheet = maxRowsPerSheet;
+        }
+
+        /**
+         * 获取日期格式对应的设置
+         *
+         * @param pattern 日期格式，为 null 时使用 yyyy-MM-dd
+         * @return 导出的格式设置
+         * @throws IllegalArgumentException 日期格式不合法
+         */
+        public static ExportContext of(String pattern) {
+            if (pattern == null || DEFAULT_DATE_PATTERN.equals(pattern)) {
+                return DEFAULT;
+            }
+            return new ExportContext(pattern, DEFAULT.zone, null, 0);
+        }
+
+        /**
+         * @param zone Date、Instant 转换为日期时间时使用的时区
+         * @return 使用指定时区的新设置
+         */
+        public ExportContext withZone(ZoneId zone) {
+            return new ExportContext(pattern, Objects.requireNonNull(zone), numberFormat, maxRowsPerSheet);
+        }
+
+        /**
+         * @param numberFormat 数字单元格的格式，如 "#,##0.00"，为 null 时不设置格式
+         * @return 使用指定数字格式的新设置
+         */
+        public ExportContext withNumberFormat(String numberFormat) {
+            return Objects.equals(this.numberFormat, numberFormat) ? this : new ExportContext(pattern, zone, numberFormat, maxRowsPerSheet);
+        }
+
+        /**
+         * 每个 sheet 写满 maxRowsPerSheet 个数据行后新建 sheet（表名加上序号，如 "明细 (2)"），重复表头后继续写入
+         *
+         * @param maxRowsPerSheet 每个 sheet 的数据行数上限（不含表头），0 表示文件格式的上限，超过文件格式的上限时以文件格式的上限为准
+         * @return 使用指定行数上限的新设置
+         */
+        public ExportContext withMaxRowsPerSheet(int maxRowsPerSheet) {
+            if (maxRowsPerSheet < 0) {
+                throw new IllegalArgumentException("maxRowsPerSheet 不能小于 0");
+            }
+            return new ExportContext(pattern, zone, numberFormat, maxRowsPerSheet);
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        public String getNumberFormat() {
+            return numberFormat;
+        }
+
+        public int getMaxRowsPerSheet() {
+            return maxRowsPerSheet;
+        }
+
+        /**
+         * @param value 值
+         * @return 是否为按日期格式写入的类型：Date、Instant、LocalDate、LocalDateTime、ZonedDateTime、OffsetDateTime
+         */
+        static boolean isDate(Object value) {
+            return value instanceof Date || value instanceof Instant || value instanceof LocalDate || value instanceof LocalDateTime
+                    || value instanceof ZonedDateTime || value instanceof OffsetDateTime;
+        }
+
+        /**
+         * 格式化日期，LocalDate 按当天零点格式化
+         *
+         * @param value {@link #isDate(Object)} 为 true 的值
+         * @return 格式化后的文本
+         */
+        String formatDate(Object value) {
+            if (value instanceof Date) {
+                // java.sql.Date 不支持 toInstant()
+                return formatter.format(Instant.ofEpochMilli(((Date) value).getTime()).atZone(zone));
+            }
+            if (value instanceof Instant) {
+                return formatter.format(((Instant) value).atZone(zone));
+            }
+            if (value instanceof LocalDate) {
+                return formatter.format(((LocalDate) value).atStartOfDay());
+            }
+            return formatter.format((TemporalAccessor) value);
+        }
+
+        /**
+         * 在 workbook 中创建数字单元格的样式，只能在写入该 workbook 的线程中调用
+         *
+         * @param workbook 工作簿
+         * @return 单元格样式，没有设置数字格式时返回 null
+         */
+        CellStyle createNumberStyle(Workbook workbook) {
+            if (numberFormat == null) {
+                return null;
+            }
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(workbook.createDataFormat().getFormat(numberFormat));
+            return style;
+        }
+    }
+
+    /**
+     * 把一行数据转换为可以直接写入单元格的值，不访问 sheet，可以在多个线程中并行执行<br>
+     * javabean 的 Integer、Long、Float、Double 属性写入数字单元格，Boolean 属性写入布尔单元格
+     * （早期版本写入值后又被空字符串覆盖，导出的是空白的文本单元格），null 属性写入空单元格
+     *
+     * @param t       行数据：Map、Object[]、List 或者 javabean
+     * @param headers 表头，行数据为 Map 时按表头取值
+     * @param context 导出的格式设置
+     * @return 单元格值：String、Double、Boolean，null 表示空单元格
+     */
+    public static Object[] convertRow(Object t, String[] headers, ExportContext context) {
+        // row data is map
+        if (t instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) t;
+            List<Object> values = new ArrayList<>(headers.length);
+            for (String k : headers) {
+                if (!map.containsKey(k)) {
+                    LOGGER.error("Map 中 不存在 key [" + k + "]");
+                    continue;
+                }
+                values.add(toCellText(map.get(k)));
+            }
+            return values.toArray();
+        } // row data is Object[]
+        else if (t instanceof Object[]) {
+            Object[] tObjArr = (Object[]) t;
+            Object[] values = new Object[tObjArr.length];
+            for (int i = 0; i < tObjArr.length; i++) {
+                values[i] = toCellText(tObjArr[i]);
+            }
+            return values;
+        } // row data is List
+        else if (t instanceof List<?>) {
+            List<?> rowData = (List<?>) t;
+            Object[] values = new Object[rowData.size()];
+            for (int i = 0; i < rowData.size(); i++) {
+                values[i] = toCellText(rowData.get(i));
+            }
+            return values;
+        }
+        // row data is vo
+        // 利用反射，根据javabean属性的先后顺序，动态调用getXxx()方法得到属性值
+        Field[] fields = t.getClass().getDeclaredFields();
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            String fieldName = field.getName();
+            String getMethodName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+
+            try {
+                Class<?> tClazz = t.getClass();
+                Method getMethod = tClazz.getMethod(getMethodName);
+                Object value = getMethod.invoke(t);
+                if (value == null) {
+                    values[i] = null;
+                } else if (value instanceof Integer || value instanceof Float || value instanceof Double || value instanceof Long) {
+                    values[i] = ((Number) value).doubleValue();
+                } else if (value instanceof Boolean) {
+                    values[i] = value;
+                } else if (ExportContext.isDate(value)) {
+                    values[i] = context.formatDate(value);
+                } else {
+                    // 其它数据类型都当作字符串简单处理
+                    values[i] = value.toString();
+                }
+            } catch (Exception e) {
+                LOGGER.error("#write2Sheet error.", e);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Map、Object[]、List 中的值一律按字符串写入，null 写入空字符串
+     *
+     * @param value 值
+     * @return 单元格文本
+     */
+    private static String toCellText(Object value) {
+        return value == null ? StringUtils.EMPTY : String.valueOf(value);
+    }
+
+    /**
+     * 把转换好的单元格值写入行
+     *
+     * @param row         行
+     * @param values      单元格值：String、Double、Boolean，null 表示空单元格
+     * @param numberStyle 数字单元格的样式，为 null 时使用默认样式
+     */
+    private static void writeCells(Row row, Object[] values, CellStyle numberStyle) {
+        for (int i = 0; i < values.length; i++) {
+            Cell cell = row.createCell(i);
+            Object value = values[i];
+            if (value instanceof String) {
+                cell.setCellValue((String) value);
+            } else if (value instanceof Double) {
+                cell.setCellValue((Double) value);
+                if (numberStyle != null) {
+                    cell.setCellStyle(numberStyle);
+                }
+            } else if (value instanceof Boolean) {
+                cell.setCellValue((Boolean) value);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.github.idealismxxm.excelutils;
+
+import com.github.idealismxxm.excelutils.ExcelUtil.ExcelSheet;
+import com.github.idealismxxm.excelutils.ExcelUtil.ExportContext;
+import com.github.idealismxxm.excelutils.ExcelUtil.ExportJob;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 导出的测试：按行数上限换 sheet，数字样式的复用，异步导出的排队和失败
+ *
+ * @author idealism
+ */
+public class ExcelUtilExportTest {
+
+    private static final String[] HEADERS = {"编号", "名称"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void exportRollsOverAtMaxRowsPerSheet() throws IOException {
+        File file = new File(folder.getRoot(), "rollover.xlsx");
+        ExcelSheet<List<Object>> sheet = new ExcelSheet<>();
+        sheet.setSheetName("明细");
+        sheet.setHeaders(HEADERS);
+        sheet.setDataset(rows(25));
+
+        ExcelUtil.exportExcelWithContext(Collections.singletonList(sheet), file.getPath(),
+                ExportContext.DEFAULT.withMaxRowsPerSheet(10));
+
+        try (Workbook workbook = ExcelUtil.openForRead(file)) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals(Arrays.asList("明细", "明细 (2)", "明细 (3)"), sheetNames(workbook));
+            int next = 0;
+            for (int i = 0; i < 3; i++) {
+                List<List<Object>> data = ExcelUtil.getSheetData(workbook, workbook.getSheetAt(i));
+                // 每个 sheet 都重复表头
+                assertEquals(Arrays.asList(HEADERS), data.get(0));
+                assertEquals(i < 2 ? 10 : 5, data.size() - 1);
+                for (List<Object> row : data.subList(1, data.size())) {
+                    assertEquals(String.valueOf(next++), row.get(0));
+                }
+            }
+            assertEquals(25, next);
+        }
+    }
+
+    @Test
+    public void numberStyleIsCreatedOncePerWorkbook() throws IOException {
+        File file = new File(folder.getRoot(), "styles.xls");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            items.add(new Item(i, i + 0.5, true));
+        }
+        List<ExcelSheet<Item>> sheets = new ArrayList<>();
+        for (String sheetName : Arrays.asList("一", "二", "三")) {
+            ExcelSheet<Item> sheet = new ExcelSheet<>();
+            sheet.setSheetName(sheetName);
+            sheet.setHeaders(new String[]{"编号", "价格", "有效"});
+            sheet.setDataset(items);
+            sheets.add(sheet);
+        }
+
+        ExcelUtil.exportExcelWithContext(sheets, file.getPath(),
+                ExportContext.DEFAULT.withNumberFormat("#,##0.00").withMaxRowsPerSheet(10));
+
+        try (Workbook workbook = ExcelUtil.openForRead(file)) {
+            assertEquals(9, workbook.getNumberOfSheets());
+            int numberStyles = 0;
+            for (int i = 0; i < workbook.getNumCellStyles(); i++) {
+                if ("#,##0.00".equals(workbook.getCellStyleAt(i).getDataFormatString())) {
+                    numberStyles++;
+                }
+            }
+            // 所有 sheet 共用一个数字样式
+            assertEquals(1, numberStyles);
+            Row row = workbook.getSheetAt(8).getRow(1);
+            assertEquals("#,##0.00", row.getCell(1).getCellStyle().getDataFormatString());
+        }
+    }
+
+    @Test
+    public void exportDisposesTemporaryFiles() throws IOException {
+        File tempDir = folder.newFolder("poifiles");
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(tempDir));
+        try {
+            File file = new File(folder.getRoot(), "large.xlsx");
+
+            // 超出 SXSSF 的窗口，行被刷出到临时文件
+            ExcelUtil.exportExcel(HEADERS, rows(6000), file.getPath());
+
+            assertEquals(6000, ExcelUtil.readExcel(file.getPath()).size() - 1);
+            assertArrayEquals(new String[0], tempDir.list());
+        } finally {
+            TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+        }
+    }
+
+    @Test
+    public void exportArrayRollsOverAtFormatLimit() throws IOException {
+        File file = new File(folder.getRoot(), "rollover.xls");
+        int rowCount = 70000;
+        String[][] dataList = new String[rowCount + 1][];
+        dataList[0] = HEADERS;
+        for (int i = 0; i < rowCount; i++) {
+            dataList[i + 1] = new String[]{String.valueOf(i), "N" + i};
+        }
+
+        ExcelUtil.exportExcel(dataList, file.getPath());
+
+        try (Workbook workbook = ExcelUtil.openForRead(file)) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            Sheet second = workbook.getSheetAt(1);
+            assertEquals("编号", second.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(rowCount - 65535, second.getLastRowNum());
+            assertEquals(String.valueOf(rowCount - 1), second.getRow(second.getLastRowNum()).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void asyncExportRejectsJobsBeyondQueueCapacity() throws Exception {
+        int queueCapacity = ExcelUtil.getExportQueueCapacity();
+        CountDownLatch release = new CountDownLatch(1);
+        ExcelUtil.setExportConcurrency(1);
+        ExcelUtil.setExportQueueCapacity(1);
+        try {
+            ExportJob running = ExcelUtil.exportExcelAsync(sheets(blockingRows(release)), folder.getRoot() + "/running.xlsx");
+            ExportJob queued = ExcelUtil.exportExcelAsync(sheets(rows(10)), folder.getRoot() + "/queued.xlsx");
+            ExportJob rejected = ExcelUtil.exportExcelAsync(sheets(rows(10)), folder.getRoot() + "/rejected.xlsx");
+
+            try {
+                rejected.getFuture().get(10, TimeUnit.SECONDS);
+                fail("超出排队上限的任务应当被拒绝");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            release.countDown();
+            assertTrue(running.getFuture().get(10, TimeUnit.SECONDS).exists());
+            assertTrue(queued.getFuture().get(10, TimeUnit.SECONDS).exists());
+            assertFalse(rejected.getFile().exists());
+        } finally {
+            release.countDown();
+            ExcelUtil.setExportConcurrency(Runtime.getRuntime().availableProcessors());
+            ExcelUtil.setExportQueueCapacity(queueCapacity);
+        }
+    }
+
+    @Test
+    public void failedOrCancelledAsyncExportKeepsExistingFile() throws Exception {
+        File file = folder.newFile("existing.xlsx");
+        Files.write(file.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+        List<List<Object>> failing = new AbstractList<List<Object>>() {
+            @Override
+            public List<Object> get(int index) {
+                throw new IllegalStateException("分页查询失败");
+            }
+
+            @Override
+            public int size() {
+                return 10;
+            }
+        };
+
+        ExportJob failed = ExcelUtil.exportExcelAsync(sheets(failing), file.getPath());
+        try {
+            failed.getFuture().get(10, TimeUnit.SECONDS);
+            fail("读取数据失败应当传递异常");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        CountDownLatch release = new CountDownLatch(1);
+        ExportJob cancelled = ExcelUtil.exportExcelAsync(sheets(blockingRows(release)), file.getPath());
+        assertTrue(cancelled.cancel());
+        release.countDown();
+        try {
+            cancelled.getFuture().get(10, TimeUnit.SECONDS);
+            fail("取消的任务应当抛出 CancellationException");
+        } catch (CancellationException expected) {
+            // 导出线程在下一行前停止
+        }
+
+        // 等待导出线程删除临时文件
+        long deadline = System.currentTimeMillis() + 10000;
+        while (folder.getRoot().list().length > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("old", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        assertArrayEquals(new String[]{"existing.xlsx"}, folder.getRoot().list());
+    }
+
+    private static List<ExcelSheet<List<Object>>> sheets(Collection<List<Object>> dataset) {
+        ExcelSheet<List<Object>> sheet = new ExcelSheet<>();
+        sheet.setSheetName("明细");
+        sheet.setHeaders(HEADERS);
+        sheet.setDataset(dataset);
+        return Collections.singletonList(sheet);
+    }
+
+    /**
+     * @param release 放行后才返回第一行
+     * @return 10 行数据
+     */
+    private static Collection<List<Object>> blockingRows(CountDownLatch release) {
+        return new AbstractCollection<List<Object>>() {
+            @Override
+            public Iterator<List<Object>> iterator() {
+                Iterator<List<Object>> rows = rows(10).iterator();
+                return new Iterator<List<Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return rows.hasNext();
+                    }
+
+                    @Override
+                    public List<Object> next() {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return rows.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return 10;
+            }
+        };
+    }
+
+    private static List<List<Object>> rows(int count) {
+        List<List<Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(Arrays.asList(String.valueOf(i), "N" + i));
+        }
+        return rows;
+    }
+
+    private static List<String> sheetNames(Workbook workbook) {
+        List<String> names = new ArrayList<>();
+        for (Sheet sheet : workbook) {
+            names.add(sheet.getSheetName());
+        }
+        return names;
+    }
+
+    public static class Item {
+        private final Integer id;
+
+        private final Double price;
+
+        private final Boolean valid;
+
+        Item(Integer id, Double price, Boolean valid) {
+            this.id = id;
+            this.price = price;
+            this.valid = valid;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Double getPrice() {
+            return price;
+        }
+
+        public Boolean getValid() {
+            return valid;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.github.idealismxxm.excelutils;
+
+import com.github.idealismxxm.excelutils.ExcelUtil.ExcelMetrics;
+import com.github.idealismxxm.excelutils.ExcelUtil.ReadQuery;
+import com.github.idealismxxm.excelutils.ExcelUtil.SheetReadStats;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 读取的测试：没有读取扩展时按对象模型读取，查询的列选择和行过滤，csv 的编码<br>
+ * SAX 流式解析的测试在 excelutils-streaming 中
+ *
+ * @author idealism
+ */
+public class ExcelUtilReadTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long streamingThreshold;
+
+    @Before
+    public void setUp() {
+        streamingThreshold = ExcelUtil.getStreamingThreshold();
+    }
+
+    @After
+    public void tearDown() {
+        ExcelUtil.setStreamingThreshold(streamingThreshold);
+    }
+
+    @Test
+    public void xlsxIsReadWithDomWithoutReadExtension() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+        assertSame(ExcelUtil.ReadExtension.DEFAULT, ExcelUtil.getReadExtension());
+        // 没有读取扩展时流式阈值不生效
+        ExcelUtil.setStreamingThreshold(0);
+
+        List<List<Object>> rows = ExcelUtil.readExcel(file.getPath());
+        assertEquals(readWithDom(file), rows);
+        // 空行被跳过
+        assertEquals(1 + 6, rows.size());
+        try (InputStream inputStream = new FileInputStream(file)) {
+            assertEquals(expectedPaidOrders(), ExcelUtil.readExcel(inputStream, "xlsx", paidOrders().size(file.length())));
+        }
+    }
+
+    @Test
+    public void queryProjectsAndFiltersOnDomPath() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+        ExcelUtil.setStreamingThreshold(Long.MAX_VALUE);
+
+        assertEquals(expectedPaidOrders(), ExcelUtil.readExcel(file.getPath(), paidOrders()));
+    }
+
+    @Test
+    public void queryProjectsAndFiltersOnXls() throws IOException {
+        File file = createOrders(new HSSFWorkbook(), "orders.xls");
+
+        assertEquals(expectedPaidOrders(), ExcelUtil.readExcel(file.getPath(), paidOrders()));
+    }
+
+    @Test
+    public void queryByColumnIndex() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+        ReadQuery query = ReadQuery.sheet(0).select(0).where(4, Boolean.TRUE::equals);
+
+        List<List<Object>> rows = ExcelUtil.readExcel(file.getPath(), query);
+
+        assertEquals(Arrays.asList(
+                Collections.singletonList("订单号"),
+                Collections.singletonList("A002"),
+                Collections.singletonList("A005")), rows);
+    }
+
+    @Test
+    public void filteredRowsAreNotCountedAsBlank() throws IOException {
+        ExcelMetrics metrics = ExcelUtil.getMetrics();
+        List<SheetReadStats> stats = new ArrayList<>();
+        ExcelUtil.setMetrics(new ExcelMetrics() {
+            @Override
+            public void sheetRead(SheetReadStats sheetReadStats) {
+                stats.add(sheetReadStats);
+            }
+        });
+        try {
+            File xlsx = createStatuses(new XSSFWorkbook(), "statuses.xlsx");
+            File xls = createStatuses(new HSSFWorkbook(), "statuses.xls");
+            ReadQuery query = ReadQuery.sheet(0).where("状态", "已支付"::equals);
+            assertEquals(1 + 4, ExcelUtil.readExcel(xlsx.getPath(), query).size());
+            assertEquals(1 + 4, ExcelUtil.readExcel(xls.getPath(), query).size());
+        } finally {
+            ExcelUtil.setMetrics(metrics);
+        }
+
+        assertEquals(2, stats.size());
+        for (SheetReadStats sheetReadStats : stats) {
+            assertEquals(1 + 4, sheetReadStats.getRows());
+            assertEquals(1, sheetReadStats.getBlankRows());
+            // 包括最后一个输出行之后的行
+            assertEquals(5, sheetReadStats.getFilteredRows());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void queryWithMissingHeaderFails() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+
+        ExcelUtil.readExcel(file.getPath(), ReadQuery.sheet(0).select("不存在的列"));
+    }
+
+    @Test
+    public void csvIsReadWithGivenCharset() throws IOException {
+        Charset gbk = Charset.forName("GBK");
+        File file = folder.newFile("orders.csv");
+        Files.write(file.toPath(), "订单号,状态\r\nA001,已支付\r\nA002,待支付\r\n".getBytes(gbk));
+        List<List<Object>> expected = Arrays.asList(Arrays.asList("订单号", "状态"), Arrays.asList("A001", "已支付"));
+
+        ReadQuery query = ReadQuery.sheet(0).where("状态", "已支付"::equals).charset(gbk);
+        assertEquals(expected, ExcelUtil.readExcel(file.getPath(), query));
+        try (InputStream in = new FileInputStream(file)) {
+            assertEquals(expected, ExcelUtil.readExcel(in, "csv", query));
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            assertEquals(3, ExcelUtil.readCsv(in, gbk).size());
+        }
+        // 默认按 UTF-8 解码，GBK 编码的内容报错而不是返回乱码
+        try (InputStream in = new FileInputStream(file)) {
+            ExcelUtil.readCsv(in);
+            fail("GBK 编码的内容不能按 UTF-8 解码");
+        } catch (MalformedInputException expectedException) {
+            // 应当抛出异常
+        }
+    }
+
+    @Test
+    public void csvHasNoOtherSheet() throws IOException {
+        File file = folder.newFile("orders.csv");
+        Files.write(file.toPath(), "订单号\r\nA001\r\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, ExcelUtil.readExcel(file.getPath(), 0).size());
+        for (ReadQuery query : Arrays.asList(ReadQuery.sheet(1), ReadQuery.sheet("明细"))) {
+            try {
+                ExcelUtil.readExcel(file.getPath(), query);
+                fail("csv 只有一个表");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().startsWith("不存在的sheet："));
+            }
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            ExcelUtil.readExcel(in, "csv", "明细");
+            fail("csv 只有一个表");
+        } catch (IOException expected) {
+            assertEquals("不存在的sheet：明细", expected.getMessage());
+        }
+    }
+
+    private static ReadQuery paidOrders() {
+        return ReadQuery.sheet(0)
+                .select("订单号", "金额")
+                .where("状态", "已支付"::equals);
+    }
+
+    private static List<List<Object>> expectedPaidOrders() {
+        return Arrays.asList(
+                Arrays.asList("订单号", "金额"),
+                Arrays.asList("A001", 10.5),
+                Arrays.asList("A003", 30.5),
+                Arrays.asList("A005", 50.5));
+    }
+
+    private static List<List<Object>> readWithDom(File file) throws IOException {
+        try (Workbook workbook = ExcelUtil.openForRead(file)) {
+            return ExcelUtil.getSheetData(workbook, workbook.getSheetAt(0));
+        }
+    }
+
+    /**
+     * 生成状态表：第 1～10 行奇数行已支付、偶数行待支付，第 5 行不存在
+     */
+    private File createStatuses(Workbook workbook, String fileName) throws IOException {
+        File file = folder.newFile(fileName);
+        try (Workbook wb = workbook; OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("状态");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("编号");
+            header.createCell(1).setCellValue("状态");
+            for (int i = 1; i <= 10; i++) {
+                if (i == 5) {
+                    continue;
+                }
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("N" + i);
+                row.createCell(1).setCellValue(i % 2 == 1 ? "已支付" : "待支付");
+            }
+            wb.write(out);
+        }
+        return file;
+    }
+
+    /**
+     * 生成订单表：文本、两位小数、常规格式的整数、日期、布尔值，中间有一个空行
+     */
+    private File createOrders(Workbook workbook, String fileName) throws IOException {
+        File file = folder.newFile(fileName);
+        try (Workbook wb = workbook; OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("订单");
+            CellStyle amountStyle = wb.createCellStyle();
+            amountStyle.setDataFormat(wb.createDataFormat().getFormat("0.00"));
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd"));
+
+            Row header = sheet.createRow(0);
+            String[] headers = {"订单号", "金额", "状态", "下单时间", "加急"};
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set(2020, Calendar.MAY, 1);
+            int rowIndex = 1;
+            for (int i = 1; i <= 6; i++) {
+                if (i == 4) {
+                    // 空行
+                    sheet.createRow(rowIndex++).createCell(0).setCellValue(" ");
+                }
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(String.format("A%03d", i));
+                Cell amount = row.createCell(1);
+                amount.setCellValue(i * 10 + 0.5);
+                amount.setCellStyle(amountStyle);
+                row.createCell(2).setCellValue(i % 2 == 1 ? "已支付" : "待支付");
+                Cell date = row.createCell(3);
+                date.setCellValue(calendar.getTime());
+                date.setCellStyle(dateStyle);
+                if (i == 2 || i == 5) {
+                    row.createCell(4).setCellValue(true);
+                }
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+            }
+            // 常规格式的整数读取为不带小数的字符串
+            sheet.getRow(1).createCell(5).setCellValue(42);
+            wb.write(out);
+        }
+        return file;
+    }
+}
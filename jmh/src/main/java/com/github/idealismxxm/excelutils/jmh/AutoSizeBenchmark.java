@@ -0,0 +1,79 @@
+package com.github.idealismxxm.excelutils.jmh;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自动调整列宽的基准测试，导出时每个 sheet 的每一列都要调用一次 autoSizeColumn
+ *
+ * @author idealism
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AutoSizeBenchmark {
+
+    @Param({"NARROW_STRING", "MIXED"})
+    private Fixtures.Shape shape;
+
+    @Param({"xls", "xlsx"})
+    private String format;
+
+    @Param({"5000"})
+    private int rows;
+
+    private Workbook workbook;
+
+    private Sheet sheet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // xlsx 与导出时一样使用 SXSSF，窗口足够大，所有行都参与计算
+        workbook = "xls".equals(format) ? new HSSFWorkbook() : new SXSSFWorkbook(rows + 1);
+        sheet = Fixtures.fill(workbook, shape, rows);
+        if (sheet instanceof SXSSFSheet) {
+            ((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+        workbook.close();
+    }
+
+    /**
+     * 对所有列自动调整列宽
+     */
+    @Benchmark
+    public Sheet autoSizeColumn() {
+        for (int i = 0; i < shape.columns; i++) {
+            sheet.autoSizeColumn(i);
+        }
+        return sheet;
+    }
+}
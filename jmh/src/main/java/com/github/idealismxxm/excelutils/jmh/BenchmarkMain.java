@@ -0,0 +1,39 @@
+package com.github.idealismxxm.excelutils.jmh;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * 运行基准测试，默认开启 GC 分析（相当于 -prof gc），同时输出吞吐量和分配速率（gc.alloc.rate.norm 为每次操作分配的字节数）<br>
+ * 参数与 JMH 命令行相同，如只运行读取的基准测试并指定形状：
+ * <pre>
+ * java -cp ... com.github.idealismxxm.excelutils.jmh.BenchmarkMain ReadBenchmark -p shape=WIDE_NUMERIC -p format=xlsx
+ * </pre>
+ * 打包后也可以直接运行 java -jar jmh/target/benchmarks.jar，-l、-h 等只输出信息的参数交给 JMH 处理
+ *
+ * @author idealism
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListWithParams()
+                || commandLineOptions.shouldListProfilers() || commandLineOptions.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        Options options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
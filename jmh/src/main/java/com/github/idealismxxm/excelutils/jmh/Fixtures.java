@@ -0,0 +1,279 @@
+package com.github.idealismxxm.excelutils.jmh;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试用的数据：按固定随机种子生成，同样的参数每次生成的内容相同
+ *
+ * @author idealism
+ */
+public final class Fixtures {
+
+    /**
+     * 随机种子
+     */
+    private static final long SEED = 20161110L;
+
+    /**
+     * 导出时的表头
+     */
+    static final String[] HEADERS = {"name", "phone", "age", "amount", "birthday", "active"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * 工作簿的形状
+     */
+    public enum Shape {
+        /**
+         * 5 列短字符串
+         */
+        NARROW_STRING(5),
+        /**
+         * 100 列数字
+         */
+        WIDE_NUMERIC(100),
+        /**
+         * 字符串、数字、日期、布尔混合的 12 列
+         */
+        MIXED(12),
+        /**
+         * 50 列，约 10% 的单元格有值
+         */
+        SPARSE(50),
+        /**
+         * 10 列数字 + 10 列引用同行数字的公式（带缓存的计算结果）
+         */
+        FORMULA(20);
+
+        /**
+         * 列数
+         */
+        final int columns;
+
+        Shape(int columns) {
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * 导出的行数据类型
+     */
+    public enum RowShape {
+        MAP, LIST, ARRAY, BEAN
+    }
+
+    /**
+     * 生成工作簿文件
+     *
+     * @param shape  形状
+     * @param format xls 或 xlsx
+     * @param rows   数据行数（不含表头）
+     * @return 临时文件，使用完需要删除
+     * @throws IOException IO 异常
+     */
+    static File createWorkbook(Shape shape, String format, int rows) throws IOException {
+        File file = File.createTempFile("jmh-" + shape.name().toLowerCase() + "-", "." + format);
+        Workbook workbook = "xls".equals(format) ? new HSSFWorkbook() : new SXSSFWorkbook(1000);
+        try (OutputStream out = new FileOutputStream(file)) {
+            fill(workbook, shape, rows);
+            workbook.write(out);
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            workbook.close();
+        }
+        return file;
+    }
+
+    /**
+     * 生成内存中的工作簿，用于不需要读文件的基准测试
+     *
+     * @param workbook 空工作簿
+     * @param shape    形状
+     * @param rows     数据行数（不含表头）
+     * @return 填充后的 sheet
+     */
+    static Sheet fill(Workbook workbook, Shape shape, int rows) {
+        Random random = new Random(SEED);
+        Sheet sheet = workbook.createSheet(shape.name());
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+        Row header = sheet.createRow(0);
+        for (int j = 0; j < shape.columns; j++) {
+            header.createCell(j).setCellValue("col" + j);
+        }
+        for (int i = 1; i <= rows; i++) {
+            Row row = sheet.createRow(i);
+            for (int j = 0; j < shape.columns; j++) {
+                switch (shape) {
+                    case NARROW_STRING:
+                        row.createCell(j).setCellValue(randomString(random, 8));
+                        break;
+                    case WIDE_NUMERIC:
+                        row.createCell(j).setCellValue(random.nextInt(1000000) / 100.0);
+                        break;
+                    case MIXED:
+                        setMixedValue(row.createCell(j), j, random, dateStyle);
+                        break;
+                    case SPARSE:
+                        if (random.nextInt(10) == 0) {
+                            row.createCell(j).setCellValue(random.nextBoolean() ? randomString(random, 6) : "" + random.nextInt(1000));
+                        }
+                        break;
+                    case FORMULA:
+                    default:
+                        setFormulaValue(row, j, i, random);
+                        break;
+                }
+            }
+        }
+        return sheet;
+    }
+
+    private static void setMixedValue(Cell cell, int column, Random random, CellStyle dateStyle) {
+        switch (column % 4) {
+            case 0:
+                cell.setCellValue(randomString(random, 10));
+                break;
+            case 1:
+                cell.setCellValue(random.nextInt(100000));
+                break;
+            case 2:
+                cell.setCellValue(new Date(1500000000000L + random.nextInt(1000000) * 60000L));
+                cell.setCellStyle(dateStyle);
+                break;
+            default:
+                cell.setCellValue(random.nextBoolean());
+                break;
+        }
+    }
+
+    /**
+     * 前一半列为数字，后一半列为引用同行数字的公式，同时写入计算结果作为缓存值
+     */
+    private static void setFormulaValue(Row row, int column, int rowIndex, Random random) {
+        int half = Shape.FORMULA.columns / 2;
+        if (column < half) {
+            row.createCell(column).setCellValue(random.nextInt(1000));
+            return;
+        }
+        int source = column - half;
+        Cell cell = row.createCell(column);
+        cell.setCellFormula(CellReference.convertNumToColString(source) + (rowIndex + 1) + "*2");
+        cell.setCellValue(row.getCell(source).getNumericCellValue() * 2);
+    }
+
+    /**
+     * 生成导出用的数据集，列与 {@link #HEADERS} 对应
+     *
+     * @param rowShape 行数据类型
+     * @param rows     行数
+     * @return 数据集
+     */
+    static List<Object> createDataset(RowShape rowShape, int rows) {
+        Random random = new Random(SEED);
+        List<Object> dataset = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Object[] values = {randomString(random, 6), "1" + (3000000000L + random.nextInt(999999999)),
+                    random.nextInt(100), random.nextInt(10000000) / 100.0,
+                    new Date(1500000000000L + random.nextInt(1000000) * 60000L), random.nextBoolean()};
+            switch (rowShape) {
+                case MAP:
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int j = 0; j < HEADERS.length; j++) {
+                        map.put(HEADERS[j], values[j]);
+                    }
+                    dataset.add(map);
+                    break;
+                case LIST:
+                    dataset.add(new ArrayList<>(Arrays.asList(values)));
+                    break;
+                case ARRAY:
+                    dataset.add(values);
+                    break;
+                case BEAN:
+                default:
+                    dataset.add(new Person((String) values[0], (String) values[1], (Integer) values[2], (Double) values[3],
+                            (Date) values[4], (Boolean) values[5]));
+                    break;
+            }
+        }
+        return dataset;
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * javabean 形式的行数据，属性顺序与 {@link #HEADERS} 对应
+     */
+    public static class Person {
+        private String name;
+        private String phone;
+        private Integer age;
+        private Double amount;
+        private Date birthday;
+        private Boolean active;
+
+        Person(String name, String phone, Integer age, Double amount, Date birthday, Boolean active) {
+            this.name = name;
+            this.phone = phone;
+            this.age = age;
+            this.amount = amount;
+            this.birthday = birthday;
+            this.active = active;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public Double getAmount() {
+            return amount;
+        }
+
+        public Date getBirthday() {
+            return birthday;
+        }
+
+        public Boolean getActive() {
+            return active;
+        }
+    }
+}
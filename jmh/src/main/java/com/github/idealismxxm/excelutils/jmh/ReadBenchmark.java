@@ -0,0 +1,99 @@
+package com.github.idealismxxm.excelutils.jmh;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取的基准测试：单元格取值、整个 sheet 取数据、从文件读取（打开 + 解析）
+ *
+ * @author idealism
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({"NARROW_STRING", "WIDE_NUMERIC", "MIXED", "SPARSE", "FORMULA"})
+    private Fixtures.Shape shape;
+
+    @Param({"xls", "xlsx"})
+    private String format;
+
+    @Param({"10000"})
+    private int rows;
+
+    private File file;
+
+    private Workbook workbook;
+
+    private Sheet sheet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Fixtures.createWorkbook(shape, format, rows);
+        workbook = WorkbookFactory.create(file, null, true);
+        sheet = workbook.getSheetAt(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        workbook.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 对 sheet 的每个单元格取值，一次操作为整个 sheet
+     */
+    @Benchmark
+    public void getCellValue(Blackhole blackhole) {
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                blackhole.consume(ExcelUtil.getCellValue(cell));
+            }
+        }
+    }
+
+    /**
+     * 已打开的 workbook 中取整个 sheet 的数据
+     */
+    @Benchmark
+    public List<?> getSheetData() {
+        return ExcelUtil.getSheetData(workbook, sheet);
+    }
+
+    /**
+     * 从文件读取整个 sheet，包括识别文件类型和打开 workbook
+     */
+    @Benchmark
+    public List<?> readExcel() throws IOException {
+        return ExcelUtil.readExcel(file.getPath());
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.idealismxxm.excelutils.jmh;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导出的基准测试：各种行数据类型写入 sheet，包括自动调整列宽
+ *
+ * @author idealism
+ * @see AutoSizeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Param({"MAP", "LIST", "ARRAY", "BEAN"})
+    private Fixtures.RowShape rowShape;
+
+    @Param({"xls", "xlsx"})
+    private String format;
+
+    @Param({"10000"})
+    private int rows;
+
+    private List<Object> dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = Fixtures.createDataset(rowShape, rows);
+    }
+
+    /**
+     * 写入表头、数据行并自动调整列宽，不写文件
+     */
+    @Benchmark
+    public Workbook write2Sheet() throws IOException {
+        Workbook workbook = "xls".equals(format) ? new HSSFWorkbook() : new SXSSFWorkbook(5000);
+        try {
+            ExcelUtil.write2Sheet(workbook.createSheet(), Fixtures.HEADERS, dataset, "yyyy-MM-dd");
+            return workbook;
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            workbook.close();
+        }
+    }
+}
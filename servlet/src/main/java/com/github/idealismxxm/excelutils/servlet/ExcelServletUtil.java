@@ -0,0 +1,55 @@
+package com.github.idealismxxm.excelutils.servlet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * excel 文件的 servlet 工具类，单独成模块，不需要下载功能的批处理任务不依赖 servlet-api
+ *
+ * @author idealism
+ */
+public class ExcelServletUtil {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ExcelServletUtil.class);
+
+    /**
+     * 下载时每次复制的字节数
+     */
+    private final static int BUFFER_SIZE = 8192;
+
+    /**
+     * EXCEL文件下载：边读边写，不把整个文件读入内存
+     *
+     * @param filePath 文件路径
+     * @param response 响应
+     */
+    public static void download(String filePath, HttpServletResponse response) {
+        File file = new File(filePath);
+        // 取得文件名
+        String filename = file.getName();
+        // 以流的形式下载文件
+        try (InputStream in = new FileInputStream(file)) {
+            // 清空response
+            response.reset();
+            // 设置response的Header，文件名按 RFC 5987 以 UTF-8 编码，filename 供不支持 filename* 的客户端使用
+            String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8.name()).replace("+", "%20");
+            response.addHeader("Content-Disposition", "attachment;filename=\"" + encodedFilename + "\";filename*=UTF-8''" + encodedFilename);
+            response.addHeader("Content-Length", String.valueOf(file.length()));
+            response.setContentType("application/vnd.ms-excel");
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            out.flush();
+        } catch (IOException e) {
+            LOGGER.error("#download error.", e);
+        }
+    }
+}
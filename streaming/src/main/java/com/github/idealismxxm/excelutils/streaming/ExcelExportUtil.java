@@ -0,0 +1,976 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import com.github.idealismxxm.excelutils.ExcelUtil.ExcelSheet;
+import com.github.idealismxxm.excelutils.ExcelUtil.ExportContext;
+import com.github.idealismxxm.excelutils.ExcelUtil.ReadExtension;
+import com.github.idealismxxm.excelutils.ExcelUtil.SheetRoller;
+import com.github.idealismxxm.excelutils.ExcelUtil.StyleRegistry;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.poi.ooxml.util.DocumentHelper;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 大数据量的导出工具类：流水线方式写入 sheet，以及在不加载已有数据的情况下追加到已有的 excel 文件<br>
+ * 行数据的转换、单元格样式和写入统计与 {@link ExcelUtil} 的导出一致
+ *
+ * @author idealism
+ */
+public class ExcelExportUtil {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ExcelExportUtil.class);
+
+    /**
+     * office2003 文件类型
+     */
+    private final static String XLS = "xls";
+
+    /**
+     * office2007 文件类型
+     */
+    private final static String XLSX = "xlsx";
+
+    /**
+     * xlsx 主体内容的命名空间
+     */
+    private final static String SPREADSHEETML_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    /**
+     * xlsx 关系引用属性（r:id）的命名空间
+     */
+    private final static String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    /**
+     * xlsx 关系文件（.rels）的命名空间
+     */
+    private final static String PACKAGE_RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    /**
+     * xlsx 内容类型文件的命名空间
+     */
+    private final static String CONTENT_TYPES_NS = "http://schemas.openxmlformats.org/package/2006/content-types";
+
+    /**
+     * xlsx 内容类型文件的路径
+     */
+    private final static String CONTENT_TYPES_PATH = "[Content_Types].xml";
+
+    /**
+     * 流水线导出时各阶段之间缓存的行数
+     */
+    private final static int PIPELINE_BUFFER_SIZE = 1024;
+
+    /**
+     * worksheet 中的 dimension，如 &lt;dimension ref="A1:F1000"/&gt;
+     */
+    private final static Pattern DIMENSION_PATTERN = Pattern.compile("<(?:\\w+:)?dimension\\s+ref=\"([A-Z]+[0-9]+)(?::([A-Z]+[0-9]+))?\"");
+
+    /**
+     * 流水线方式的 sheet 写入：读取数据集、转换单元格值、写入 sheet 分别在不同的线程中进行<br>
+     * 读取线程遍历数据集（如分页查询数据库），workers 个转换线程并行把每行数据转换为单元格值，
+     * 当前线程按顺序写入 sheet；各阶段之间通过有界队列衔接，内存中最多缓存 {@value #PIPELINE_BUFFER_SIZE} 行
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     * @param dataset 数据集合，在读取线程中遍历
+     * @param pattern 日期格式
+     * @param workers 转换线程数，至少为 1
+     * @throws IOException 读取或转换数据失败
+     */
+    public static <T> void write2SheetPipelined(Sheet sheet, String[] headers, Collection<T> dataset, String pattern, int workers) throws IOException {
+        write2SheetPipelinedWithContext(sheet, headers, dataset, ExportContext.of(pattern), workers);
+    }
+
+    /**
+     * 流水线方式的 sheet 写入
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     * @param dataset 数据集合，在读取线程中遍历
+     * @param context 导出的格式设置，在各转换线程中共享
+     * @param workers 转换线程数，至少为 1
+     * @throws IOException 读取或转换数据失败
+     * @see #write2SheetPipelined(Sheet, String[], Collection, String, int)
+     */
+    public static <T> void write2SheetPipelinedWithContext(Sheet sheet, String[] headers, Collection<T> dataset, ExportContext context, int workers)
+            throws IOException {
+        write2SheetPipelined(sheet, headers, dataset, context, new StyleRegistry(context), workers);
+    }
+
+    /**
+     * 流水线方式的 sheet 写入
+     *
+     * @param sheet   页签
+     * @param headers 表头
+     * @param dataset 数据集合，在读取线程中遍历
+     * @param context 导出的格式设置，在各转换线程中共享
+     * @param styles  本次导出的单元格样式，只在当前线程中使用
+     * @param workers 转换线程数，至少为 1
+     * @throws IOException 读取或转换数据失败
+     */
+    private static <T> void write2SheetPipelined(Sheet sheet, String[] headers, Collection<T> dataset, ExportContext context,
+                                                 StyleRegistry styles, int workers) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("转换线程数必须大于 0");
+        }
+        SheetRoller roller = new SheetRoller(sheet, headers, context, styles, 1, true);
+        AtomicLong convertNanos = new AtomicLong();
+        BlockingQueue<Future<Object[]>> queue = new ArrayBlockingQueue<>(PIPELINE_BUFFER_SIZE);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "excel-pipeline-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // 读取线程单独创建，不占用转换线程
+        ExecutorService converters = Executors.newFixedThreadPool(workers, threadFactory);
+        Thread reader = threadFactory.newThread(() -> {
+            // 结束标记：读取完成时值为 null，读取失败时带上异常
+            CompletableFuture<Object[]> end = new CompletableFuture<>();
+            try {
+                for (T t : dataset) {
+                    queue.put(converters.submit(() -> {
+                        long start = System.nanoTime();
+                        Object[] values = ExcelUtil.convertRow(t, headers, context);
+                        convertNanos.addAndGet(System.nanoTime() - start);
+                        return values;
+                    }));
+                }
+                end.complete(null);
+            } catch (InterruptedException e) {
+                end.completeExceptionally(new InterruptedIOException("导出数据读取被中断"));
+            } catch (Throwable e) {
+                end.completeExceptionally(e);
+            } finally {
+                try {
+                    // 写入线程在取到结束标记前一直消费队列，put 不会一直阻塞；写入线程提前退出时会清空队列
+                    queue.put(end);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            reader.start();
+            while (true) {
+                Object[] values = queue.take().get();
+                if (values == null) {
+                    break;
+                }
+                roller.write(values);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("导出被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("导出数据读取或转换失败", e.getCause());
+        } finally {
+            converters.shutdownNow();
+            reader.interrupt();
+            // 读取线程被中断后还要放入结束标记，清空队列保证有空位
+            queue.clear();
+        }
+        // 各转换线程的耗时之和，换 sheet 时无法区分，都计入最后一个 sheet
+        roller.addConvertNanos(convertNanos.get());
+        roller.finish();
+    }
+
+    /**
+     * 流水线方式导出，用于多个sheet：读取数据集、转换单元格值、写入 sheet 分别在不同的线程中进行，
+     * 适合数据集按需从数据库分页读取、数据转换开销较大的大数据量导出
+     *
+     * @param sheets   ExcelSheet的集合
+     * @param filePath excel文件输出路径
+     * @param pattern  如果有时间数据，设定输出格式。默认为"yyy-MM-dd"
+     * @param workers  转换线程数，至少为 1
+     * @see #write2SheetPipelined(Sheet, String[], Collection, String, int)
+     */
+    public static <T> void exportExcelPipelined(List<ExcelSheet<T>> sheets, String filePath, String pattern, int workers) {
+        exportExcelPipelinedWithContext(sheets, filePath, ExportContext.of(pattern), workers);
+    }
+
+    /**
+     * 流水线方式导出，用于多个sheet
+     *
+     * @param sheets   ExcelSheet的集合
+     * @param filePath excel文件输出路径
+     * @param context  导出的格式设置
+     * @param workers  转换线程数，至少为 1
+     * @see #exportExcelPipelined(List, String, String, int)
+     */
+    public static <T> void exportExcelPipelinedWithContext(List<ExcelSheet<T>> sheets, String filePath, ExportContext context, int workers) {
+        if (CollectionUtils.isEmpty(sheets)) {
+            return;
+        }
+        Workbook workbook = null;
+        try {
+            // 声明一个工作薄
+            workbook = ExcelUtil.getExportWorkbook(filePath);
+            StyleRegistry styles = new StyleRegistry(context);
+            for (ExcelSheet<T> sheetInfo : sheets) {
+                // 生成一个表格
+                Sheet sheet = workbook.createSheet(sheetInfo.getSheetName());
+                write2SheetPipelined(sheet, sheetInfo.getHeaders(), sheetInfo.getDataset(), context, styles, workers);
+            }
+            ExcelUtil.writeWorkbook(workbook, new File(filePath));
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.error("#exportExcelPipelined error.", e);
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+    }
+
+    /**
+     * 追加导出，用于多个sheet：文件不存在时等同于 {@link ExcelUtil#exportExcel(List, String)}；
+     * 文件已存在时，已有同名 sheet 的数据追加到该 sheet 末尾（不重复写表头），没有同名 sheet 的新建 sheet 写入表头和数据
+     *
+     * @param sheets   ExcelSheet的集合，表名不能重复
+     * @param filePath excel文件路径
+     * @throws IOException              文件类型不支持、读写失败等，此时原文件不会被修改
+     * @throws IllegalArgumentException 表名重复（不区分大小写）
+     */
+    public static <T> void appendExcel(List<ExcelSheet<T>> sheets, String filePath) throws IOException {
+        appendExcelWithContext(sheets, filePath, ExportContext.DEFAULT);
+    }
+
+    /**
+     * 追加导出，用于多个sheet：文件不存在时等同于 {@link ExcelUtil#exportExcel(List, String, String)}；
+     * 文件已存在时，已有同名 sheet 的数据追加到该 sheet 末尾（不重复写表头），没有同名 sheet 的新建 sheet 写入表头和数据<br>
+     * xlsx 不加载已有数据：已有 sheet 的行流式复制，其它未改动的压缩条目不解压直接复制，开销只与新增的数据量相关
+     *
+     * @param sheets   ExcelSheet的集合，表名不能重复
+     * @param filePath excel文件路径
+     * @param pattern  如果有时间数据，设定输出格式。默认为"yyy-MM-dd"
+     * @throws IOException              文件类型不支持、读写失败等，此时原文件不会被修改
+     * @throws IllegalArgumentException 表名重复（不区分大小写）
+     */
+    public static <T> void appendExcel(List<ExcelSheet<T>> sheets, String filePath, String pattern) throws IOException {
+        appendExcelWithContext(sheets, filePath, ExportContext.of(pattern));
+    }
+
+    /**
+     * 追加导出，用于多个sheet
+     *
+     * @param sheets   ExcelSheet的集合，表名不能重复
+     * @param filePath excel文件路径
+     * @param context  导出的格式设置；追加到已有的 xlsx 时不设置数字格式
+     * @throws IOException              文件类型不支持、读写失败等，此时原文件不会被修改
+     * @throws IllegalArgumentException 表名重复（不区分大小写）
+     * @see #appendExcel(List, String, String)
+     */
+    public static <T> void appendExcelWithContext(List<ExcelSheet<T>> sheets, String filePath, ExportContext context) throws IOException {
+        if (CollectionUtils.isEmpty(sheets)) {
+            return;
+        }
+        checkSheetNames(sheets);
+        File file = new File(filePath);
+        try {
+            if (!file.exists()) {
+                ExcelUtil.createExcel(sheets, file, context);
+                return;
+            }
+            String fileType = ExcelUtil.detectExtension(file);
+            if (XLSX.equals(fileType)) {
+                appendXlsx(file, sheets, context);
+            } else if (XLS.equals(fileType)) {
+                appendXls(file, sheets, context);
+            } else {
+                throw new IOException("不支持的文件类型");
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 检查表名不重复：同一个已有 sheet 的两份数据只会追加一份，两个同名的新 sheet 会使文件无法打开
+     *
+     * @param sheets ExcelSheet的集合
+     * @throws IllegalArgumentException 表名重复，excel 的表名不区分大小写
+     */
+    private static <T> void checkSheetNames(List<ExcelSheet<T>> sheets) {
+        Set<String> sheetNames = new HashSet<>();
+        for (ExcelSheet<T> sheet : sheets) {
+            String sheetName = sheet.getSheetName();
+            if (sheetName != null && !sheetNames.add(sheetName.toLowerCase())) {
+                throw new IllegalArgumentException("表名重复：" + sheetName);
+            }
+        }
+    }
+
+    /**
+     * 追加导出到已有的 xls 文件，xls 最多 65536 行，直接加载整个 workbook
+     *
+     * @param file    已有的文件
+     * @param sheets  ExcelSheet的集合
+     * @param context 导出的格式设置
+     * @throws IOException IO 异常
+     */
+    private static <T> void appendXls(File file, List<ExcelSheet<T>> sheets, ExportContext context) throws IOException {
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try (Workbook workbook = ReadExtension.DEFAULT.openWorkbook(file, XLS)) {
+                StyleRegistry styles = new StyleRegistry(context);
+                for (ExcelSheet<T> sheetInfo : sheets) {
+                    String sheetName = sheetInfo.getSheetName();
+                    Sheet sheet = sheetName == null ? null : workbook.getSheet(sheetName);
+                    if (sheet == null) {
+                        sheet = sheetName == null ? workbook.createSheet() : workbook.createSheet(sheetName);
+                    }
+                    if (sheet.getPhysicalNumberOfRows() == 0) {
+                        ExcelUtil.write2Sheet(sheet, sheetInfo.getHeaders(), sheetInfo.getDataset(), context, styles);
+                    } else {
+                        ExcelUtil.appendRows(sheet, sheetInfo.getHeaders(), sheetInfo.getDataset(), context, styles, sheet.getLastRowNum() + 1);
+                    }
+                }
+                ExcelUtil.writeWorkbook(workbook, tempFile);
+            }
+            ExcelUtil.replaceFile(tempFile, file);
+        } finally {
+            ExcelUtil.deleteTempFile(tempFile);
+        }
+    }
+
+    /**
+     * 追加导出到已有的 xlsx 文件：先把新增的数据写成一个临时 xlsx，再逐个复制原文件的压缩条目，
+     * 已有 sheet 在 sheetData 末尾拼接新增的行，新 sheet 作为新条目加入并登记到 workbook、关系和内容类型中
+     *
+     * @param file    已有的文件
+     * @param sheets  ExcelSheet的集合
+     * @param context 导出的格式设置
+     * @throws IOException IO 异常
+     */
+    private static <T> void appendXlsx(File file, List<ExcelSheet<T>> sheets, ExportContext context) throws IOException {
+        File deltaFile = File.createTempFile("excel-append-", ".xlsx");
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try (ZipFile zipFile = new ZipFile(file)) {
+            String workbookPath = getOfficeDocumentPath(zipFile);
+            String workbookDir = workbookPath.substring(0, workbookPath.lastIndexOf('/') + 1);
+            String workbookRelsPath = getRelationshipsPath(workbookPath);
+            Document workbookXml = readXml(zipFile, workbookPath);
+            Document workbookRels = readXml(zipFile, workbookRelsPath);
+            Map<String, String> sheetPaths = getSheetPaths(workbookXml, workbookRels, workbookDir);
+
+            // 新增的数据：已有 sheet 只写数据行，行下标接在最后一行之后；新 sheet 写表头和数据
+            // 新增的行拼接到原文件中，样式下标对应的是原文件的样式表，因此不设置数字格式
+            ExportContext deltaContext = context.withNumberFormat(null);
+            StyleRegistry deltaStyles = new StyleRegistry(deltaContext);
+            // 已有 sheet 的路径 -> 追加的最后一个单元格的位置
+            Map<String, CellReference> lastCells = new HashMap<>();
+            // 已有 sheet 的路径 -> 新增数据的 sheet 名
+            Map<String, String> splicedPaths = new HashMap<>();
+            // 新 sheet 的路径 -> 新增数据的 sheet 名
+            Map<String, String> addedPaths = new LinkedHashMap<>();
+            Document contentTypes = null;
+            SXSSFWorkbook delta = (SXSSFWorkbook) ExcelUtil.getExportWorkbook(deltaFile.getPath());
+            try {
+                for (ExcelSheet<T> sheetInfo : sheets) {
+                    Sheet sheet = delta.createSheet();
+                    int firstSheetIndex = delta.getSheetIndex(sheet);
+                    String sheetName = sheetInfo.getSheetName();
+                    String targetPath = sheetName == null ? null : sheetPaths.get(sheetName.toLowerCase());
+                    int lastRowIndex = targetPath == null ? -1 : getLastRowIndex(zipFile, targetPath);
+                    if (lastRowIndex < 0) {
+                        ExcelUtil.write2Sheet(sheet, sheetInfo.getHeaders(), sheetInfo.getDataset(), deltaContext, deltaStyles);
+                    } else {
+                        lastCells.put(targetPath, ExcelUtil.appendRows(sheet, sheetInfo.getHeaders(), sheetInfo.getDataset(), deltaContext,
+                                deltaStyles, lastRowIndex + 1));
+                    }
+
+                    // 新建的 sheet 超出行数上限时，换出的 sheet 紧接在后面，都作为新 sheet 加入
+                    for (int i = firstSheetIndex; i < delta.getNumberOfSheets(); i++) {
+                        String deltaName = delta.getSheetName(i);
+                        if (i == firstSheetIndex && targetPath != null) {
+                            splicedPaths.put(targetPath, deltaName);
+                            continue;
+                        }
+                        if (contentTypes == null) {
+                            contentTypes = readXml(zipFile, CONTENT_TYPES_PATH);
+                        }
+                        if (i == firstSheetIndex) {
+                            sheetName = sheetName == null ? getNewSheetName(workbookXml) : sheetName;
+                            addedPaths.put(addSheet(zipFile, addedPaths.keySet(), workbookXml, workbookRels, contentTypes,
+                                    workbookDir, sheetName), deltaName);
+                        } else {
+                            addedPaths.put(addSheet(zipFile, addedPaths.keySet(), workbookXml, workbookRels, contentTypes,
+                                    workbookDir, getRolloverSheetName(workbookXml, sheetName, i - firstSheetIndex + 1)), deltaName);
+                        }
+                    }
+                }
+                ExcelUtil.writeWorkbook(delta, deltaFile);
+            } finally {
+                delta.dispose();
+            }
+
+            try (ZipFile deltaZipFile = new ZipFile(deltaFile);
+                 ZipArchiveOutputStream out = new ZipArchiveOutputStream(tempFile)) {
+                // 新增数据的 sheet 按表名找到路径
+                String deltaWorkbookPath = getOfficeDocumentPath(deltaZipFile);
+                Map<String, String> deltaPaths = getSheetPaths(readXml(deltaZipFile, deltaWorkbookPath),
+                        readXml(deltaZipFile, getRelationshipsPath(deltaWorkbookPath)),
+                        deltaWorkbookPath.substring(0, deltaWorkbookPath.lastIndexOf('/') + 1));
+                splicedPaths.replaceAll((path, deltaName) -> deltaPaths.get(deltaName.toLowerCase()));
+                addedPaths.replaceAll((path, deltaName) -> deltaPaths.get(deltaName.toLowerCase()));
+
+                Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+                while (entries.hasMoreElements()) {
+                    ZipArchiveEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (splicedPaths.containsKey(name)) {
+                        out.putArchiveEntry(new ZipArchiveEntry(name));
+                        try (InputStream sheetInputStream = zipFile.getInputStream(entry);
+                             InputStream deltaInputStream = deltaZipFile.getInputStream(deltaZipFile.getEntry(splicedPaths.get(name)))) {
+                            spliceSheetData(sheetInputStream, deltaInputStream, out, lastCells.get(name));
+                        }
+                        out.closeArchiveEntry();
+                    } else if (!addedPaths.isEmpty() && workbookPath.equals(name)) {
+                        writeXml(out, name, workbookXml);
+                    } else if (!addedPaths.isEmpty() && workbookRelsPath.equals(name)) {
+                        writeXml(out, name, workbookRels);
+                    } else if (!addedPaths.isEmpty() && CONTENT_TYPES_PATH.equals(name)) {
+                        writeXml(out, name, contentTypes);
+                    } else {
+                        // 未改动的条目不解压，原样复制
+                        out.addRawArchiveEntry(entry, zipFile.getRawInputStream(entry));
+                    }
+                }
+                for (Map.Entry<String, String> added : addedPaths.entrySet()) {
+                    out.putArchiveEntry(new ZipArchiveEntry(added.getKey()));
+                    try (InputStream deltaInputStream = deltaZipFile.getInputStream(deltaZipFile.getEntry(added.getValue()))) {
+                        IOUtils.copy(deltaInputStream, out);
+                    }
+                    out.closeArchiveEntry();
+                }
+            }
+            ExcelUtil.replaceFile(tempFile, file);
+        } finally {
+            ExcelUtil.deleteTempFile(deltaFile);
+            ExcelUtil.deleteTempFile(tempFile);
+        }
+    }
+
+    /**
+     * 获取 xlsx 中 workbook.xml 的路径
+     *
+     * @param zipFile xlsx 压缩包
+     * @return workbook.xml 的路径
+     * @throws IOException IO 异常
+     */
+    private static String getOfficeDocumentPath(ZipFile zipFile) throws IOException {
+        Document rels = readXml(zipFile, "_rels/.rels");
+        NodeList relationships = rels.getElementsByTagNameNS(PACKAGE_RELATIONSHIPS_NS, "Relationship");
+        for (int i = 0; i < relationships.getLength(); i++) {
+            Element relationship = (Element) relationships.item(i);
+            if (relationship.getAttribute("Type").endsWith("/officeDocument")) {
+                String target = relationship.getAttribute("Target");
+                return target.startsWith("/") ? target.substring(1) : target;
+            }
+        }
+        throw new IOException("不支持的文件类型");
+    }
+
+    /**
+     * 获取 xlsx 中某个部件的关系文件的路径，如 xl/workbook.xml 的关系文件为 xl/_rels/workbook.xml.rels
+     *
+     * @param path 部件的路径
+     * @return 关系文件的路径
+     */
+    private static String getRelationshipsPath(String path) {
+        int index = path.lastIndexOf('/') + 1;
+        return path.substring(0, index) + "_rels/" + path.substring(index) + ".rels";
+    }
+
+    /**
+     * 获取 xlsx 中所有 sheet 的路径
+     *
+     * @param workbookXml  workbook.xml
+     * @param workbookRels workbook.xml 的关系文件
+     * @param workbookDir  workbook.xml 所在的目录
+     * @return 小写的表名 -> sheet 的路径
+     */
+    private static Map<String, String> getSheetPaths(Document workbookXml, Document workbookRels, String workbookDir) {
+        Map<String, String> targets = new HashMap<>();
+        NodeList relationships = workbookRels.getElementsByTagNameNS(PACKAGE_RELATIONSHIPS_NS, "Relationship");
+        for (int i = 0; i < relationships.getLength(); i++) {
+            Element relationship = (Element) relationships.item(i);
+            String target = relationship.getAttribute("Target");
+            targets.put(relationship.getAttribute("Id"), target.startsWith("/") ? target.substring(1) : workbookDir + target);
+        }
+        Map<String, String> sheetPaths = new HashMap<>();
+        NodeList sheetNodes = workbookXml.getElementsByTagNameNS(SPREADSHEETML_NS, "sheet");
+        for (int i = 0; i < sheetNodes.getLength(); i++) {
+            Element sheet = (Element) sheetNodes.item(i);
+            String target = targets.get(sheet.getAttributeNS(RELATIONSHIPS_NS, "id"));
+            if (target != null) {
+                // excel 的表名不区分大小写
+                sheetPaths.put(sheet.getAttribute("name").toLowerCase(), target);
+            }
+        }
+        return sheetPaths;
+    }
+
+    /**
+     * 在 workbook.xml、关系文件和内容类型文件中登记一个新 sheet
+     *
+     * @param zipFile      xlsx 压缩包
+     * @param addedPaths   已经登记的新 sheet 路径
+     * @param workbookXml  workbook.xml
+     * @param workbookRels workbook.xml 的关系文件
+     * @param contentTypes 内容类型文件
+     * @param workbookDir  workbook.xml 所在的目录
+     * @param sheetName    表名，不能与已有的表名重复
+     * @return 新 sheet 的路径
+     */
+    private static String addSheet(ZipFile zipFile, Set<String> addedPaths, Document workbookXml, Document workbookRels,
+                                   Document contentTypes, String workbookDir, String sheetName) {
+        Element sheets = (Element) workbookXml.getElementsByTagNameNS(SPREADSHEETML_NS, "sheets").item(0);
+        Set<String> relationshipIds = new HashSet<>();
+        NodeList relationships = workbookRels.getElementsByTagNameNS(PACKAGE_RELATIONSHIPS_NS, "Relationship");
+        for (int i = 0; i < relationships.getLength(); i++) {
+            relationshipIds.add(((Element) relationships.item(i)).getAttribute("Id"));
+        }
+
+        int sheetNumber = 1;
+        while (zipFile.getEntry(workbookDir + "worksheets/sheet" + sheetNumber + ".xml") != null
+                || addedPaths.contains(workbookDir + "worksheets/sheet" + sheetNumber + ".xml")) {
+            sheetNumber++;
+        }
+        String target = "worksheets/sheet" + sheetNumber + ".xml";
+        int relationshipNumber = relationshipIds.size() + 1;
+        while (relationshipIds.contains("rId" + relationshipNumber)) {
+            relationshipNumber++;
+        }
+        String relationshipId = "rId" + relationshipNumber;
+        long sheetId = getMaxSheetId(workbookXml) + 1;
+
+        Element root = workbookXml.getDocumentElement();
+        String relationshipPrefix = root.lookupPrefix(RELATIONSHIPS_NS);
+        if (relationshipPrefix == null) {
+            relationshipPrefix = "r";
+            root.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:r", RELATIONSHIPS_NS);
+        }
+        Element sheet = workbookXml.createElementNS(SPREADSHEETML_NS, qualifiedName(sheets, "sheet"));
+        sheet.setAttribute("name", sheetName);
+        sheet.setAttribute("sheetId", String.valueOf(sheetId));
+        sheet.setAttributeNS(RELATIONSHIPS_NS, relationshipPrefix + ":id", relationshipId);
+        sheets.appendChild(sheet);
+
+        Element relsRoot = workbookRels.getDocumentElement();
+        Element relationship = workbookRels.createElementNS(PACKAGE_RELATIONSHIPS_NS, qualifiedName(relsRoot, "Relationship"));
+        relationship.setAttribute("Id", relationshipId);
+        relationship.setAttribute("Type", XSSFRelation.WORKSHEET.getRelation());
+        relationship.setAttribute("Target", target);
+        relsRoot.appendChild(relationship);
+
+        Element typesRoot = contentTypes.getDocumentElement();
+        Element override = contentTypes.createElementNS(CONTENT_TYPES_NS, qualifiedName(typesRoot, "Override"));
+        override.setAttribute("PartName", "/" + workbookDir + target);
+        override.setAttribute("ContentType", XSSFRelation.WORKSHEET.getContentType());
+        typesRoot.appendChild(override);
+
+        return workbookDir + target;
+    }
+
+    /**
+     * @param workbookXml workbook.xml
+     * @return 所有 sheet 中最大的 sheetId
+     */
+    private static long getMaxSheetId(Document workbookXml) {
+        NodeList sheetNodes = workbookXml.getElementsByTagNameNS(SPREADSHEETML_NS, "sheet");
+        long maxSheetId = 0;
+        for (int i = 0; i < sheetNodes.getLength(); i++) {
+            maxSheetId = Math.max(maxSheetId, Long.parseLong(((Element) sheetNodes.item(i)).getAttribute("sheetId")));
+        }
+        return maxSheetId;
+    }
+
+    /**
+     * @param workbookXml workbook.xml
+     * @return 小写的所有表名
+     */
+    private static Set<String> getSheetNames(Document workbookXml) {
+        NodeList sheetNodes = workbookXml.getElementsByTagNameNS(SPREADSHEETML_NS, "sheet");
+        Set<String> sheetNames = new HashSet<>();
+        for (int i = 0; i < sheetNodes.getLength(); i++) {
+            sheetNames.add(((Element) sheetNodes.item(i)).getAttribute("name").toLowerCase());
+        }
+        return sheetNames;
+    }
+
+    /**
+     * 为没有表名的新 sheet 生成表名，如 "Sheet3"
+     *
+     * @param workbookXml workbook.xml
+     * @return 不与已有 sheet 重名的表名
+     */
+    private static String getNewSheetName(Document workbookXml) {
+        Set<String> sheetNames = getSheetNames(workbookXml);
+        String sheetName = "Sheet" + (getMaxSheetId(workbookXml) + 1);
+        while (sheetNames.contains(sheetName.toLowerCase())) {
+            sheetName = sheetName + "_";
+        }
+        return sheetName;
+    }
+
+    /**
+     * 为超出行数上限时换出的新 sheet 生成表名，和 {@link SheetRoller} 的命名方式相同
+     *
+     * @param workbookXml workbook.xml
+     * @param sheetName   第一个 sheet 的表名
+     * @param sheetNumber 换出的 sheet 的序号，从 2 开始，与已有 sheet 重名时递增
+     * @return 不与已有 sheet 重名的表名，如 "明细 (2)"
+     */
+    private static String getRolloverSheetName(Document workbookXml, String sheetName, int sheetNumber) {
+        Set<String> sheetNames = getSheetNames(workbookXml);
+        String name = SheetRoller.getSheetName(sheetName, sheetNumber);
+        while (sheetNames.contains(name.toLowerCase())) {
+            name = SheetRoller.getSheetName(sheetName, ++sheetNumber);
+        }
+        return name;
+    }
+
+    /**
+     * 使用和 parent 相同的命名空间前缀生成子元素的限定名
+     *
+     * @param parent    父元素
+     * @param localName 子元素的本地名
+     * @return 限定名
+     */
+    private static String qualifiedName(Element parent, String localName) {
+        String prefix = parent.getPrefix();
+        return prefix == null ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * 获取 sheet 最后一行的下标，只扫描 row 标签，不解析单元格
+     *
+     * @param zipFile   xlsx 压缩包
+     * @param sheetPath sheet 的路径
+     * @return 最后一行的下标，没有行时返回 -1
+     * @throws IOException IO 异常
+     */
+    private static int getLastRowIndex(ZipFile zipFile, String sheetPath) throws IOException {
+        final int[] lastRowIndex = {-1};
+        try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(sheetPath))) {
+            XMLReader xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if ("row".equals(localName)) {
+                        String reference = attributes.getValue("r");
+                        // 缺省 r 属性时行紧接上一行
+                        lastRowIndex[0] = reference == null ? lastRowIndex[0] + 1 : Integer.parseInt(reference) - 1;
+                    }
+                }
+            });
+            xmlReader.parse(new InputSource(inputStream));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException(e.toString(), e);
+        }
+        return lastRowIndex[0];
+    }
+
+    /**
+     * 复制已有 sheet 的 xml，在 sheetData 的末尾拼接新增 sheet 的所有行，并按追加后的最后一个单元格扩大 dimension<br>
+     * 已有 sheet 的元素带命名空间前缀时（如 &lt;x:sheetData&gt;），新增的行也加上相同的前缀
+     *
+     * @param sheetInputStream 已有 sheet 的 xml
+     * @param deltaInputStream 新增 sheet 的 xml
+     * @param outputStream     输出流
+     * @param lastCell         追加的最后一个单元格的位置，为 null 时不修改 dimension
+     * @throws IOException IO 异常
+     */
+    private static void spliceSheetData(InputStream sheetInputStream, InputStream deltaInputStream, OutputStream outputStream,
+                                        CellReference lastCell) throws IOException {
+        InputStream sheetInput = new BufferedInputStream(sheetInputStream);
+        XmlTagScanner sheetXml = new XmlTagScanner(sheetInput, null);
+        OutputStream out = new BufferedOutputStream(outputStream);
+        int matched = sheetXml.copyUntil(out, "<dimension/>", "</sheetData>", "<sheetData/>");
+        if (matched == 0) {
+            // dimension 在 sheetData 之前
+            out.write(resizeDimension(sheetXml.getTag(), lastCell).getBytes(StandardCharsets.UTF_8));
+            matched = sheetXml.copyUntil(out, "</sheetData>", "<sheetData/>") + 1;
+        }
+        if (matched <= 0) {
+            throw new IOException("sheet 中没有 sheetData，无法追加");
+        }
+        String prefix = sheetXml.getPrefix();
+        String sheetData = prefix == null ? "sheetData" : prefix + ":sheetData";
+        if (matched == 2) {
+            out.write(("<" + sheetData + ">").getBytes(StandardCharsets.UTF_8));
+        }
+        XmlTagScanner deltaXml = new XmlTagScanner(new BufferedInputStream(deltaInputStream), prefix);
+        if (deltaXml.copyUntil(null, "<sheetData>", "<sheetData/>") == 0) {
+            deltaXml.copyUntil(out, "</sheetData>");
+        }
+        out.write(("</" + sheetData + ">").getBytes(StandardCharsets.UTF_8));
+        IOUtils.copy(sheetInput, out);
+        out.flush();
+    }
+
+    /**
+     * 扩大 dimension 的范围，使其包含追加的最后一个单元格
+     *
+     * @param tag      dimension 标签
+     * @param lastCell 追加的最后一个单元格的位置，为 null 时不修改
+     * @return 修改后的 dimension 标签
+     */
+    private static String resizeDimension(String tag, CellReference lastCell) {
+        Matcher matcher = DIMENSION_PATTERN.matcher(tag);
+        if (lastCell == null || !matcher.find()) {
+            return tag;
+        }
+        CellReference first = new CellReference(matcher.group(1));
+        CellReference last = matcher.group(2) == null ? first : new CellReference(matcher.group(2));
+        CellReference resized = new CellReference(Math.max(last.getRow(), lastCell.getRow()), Math.max(last.getCol(), lastCell.getCol()));
+        return tag.substring(0, matcher.start(1)) + first.formatAsString() + ":" + resized.formatAsString() + "\"" + tag.substring(matcher.end());
+    }
+
+    /**
+     * 逐字节复制 xml 并查找标签：标签按本地名匹配，忽略命名空间前缀和属性，只缓存标签开头的若干字节，不解析整个文档
+     */
+    private static class XmlTagScanner {
+        /**
+         * 缓存的标签的最大长度，更长的标签不会是要查找的标签，直接复制
+         */
+        private static final int MAX_TAG_LENGTH = 256;
+
+        private final InputStream in;
+
+        /**
+         * 复制时给元素标签加上的命名空间前缀，为 null 时原样复制
+         */
+        private final String prefix;
+
+        private final byte[] buffer = new byte[MAX_TAG_LENGTH];
+
+        /**
+         * 当前缓存的标签长度，-1 表示不在标签中
+         */
+        private int length = -1;
+
+        /**
+         * 最近一次遇到的标签
+         */
+        private String tag;
+
+        /**
+         * @param in     xml 输入流
+         * @param prefix 复制时给元素标签加上的命名空间前缀，为 null 时原样复制
+         */
+        XmlTagScanner(InputStream in, String prefix) {
+            this.in = in;
+            this.prefix = prefix;
+        }
+
+        /**
+         * 复制 xml 直到遇到指定的标签（不含该标签）
+         *
+         * @param out  输出流，为 null 时只跳过不复制
+         * @param tags 要查找的标签，不带前缀和属性，如 "&lt;sheetData&gt;"、"&lt;/sheetData&gt;"、"&lt;sheetData/&gt;"
+         * @return 遇到的标签在 tags 中的下标，没有遇到返回 -1
+         * @throws IOException IO 异常
+         */
+        int copyUntil(OutputStream out, String... tags) throws IOException {
+            byte[][] tagBytes = new byte[tags.length][];
+            for (int i = 0; i < tags.length; i++) {
+                tagBytes[i] = tags[i].getBytes(StandardCharsets.UTF_8);
+            }
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '<') {
+                    flush(out);
+                    buffer[0] = '<';
+                    length = 1;
+                } else if (length < 0) {
+                    if (out != null) {
+                        out.write(b);
+                    }
+                } else if (length == MAX_TAG_LENGTH) {
+                    flush(out);
+                    if (out != null) {
+                        out.write(b);
+                    }
+                } else {
+                    buffer[length++] = (byte) b;
+                    if (b == '>') {
+                        for (int i = 0; i < tagBytes.length; i++) {
+                            if (matches(tagBytes[i])) {
+                                tag = new String(buffer, 0, length, StandardCharsets.UTF_8);
+                                length = -1;
+                                return i;
+                            }
+                        }
+                        flush(out);
+                    }
+                }
+            }
+            flush(out);
+            return -1;
+        }
+
+        /**
+         * @return 最近一次遇到的标签
+         */
+        String getTag() {
+            return tag;
+        }
+
+        /**
+         * @return 最近一次遇到的标签的命名空间前缀，没有前缀时返回 null
+         */
+        String getPrefix() {
+            int start = tag.startsWith("</") ? 2 : 1;
+            int end = start;
+            while (end < tag.length() && !isNameEnd(tag.charAt(end))) {
+                end++;
+            }
+            int colon = tag.lastIndexOf(':', end - 1);
+            return colon < start ? null : tag.substring(start, colon);
+        }
+
+        /**
+         * 缓存的完整标签去掉前缀和属性后是否与 tag 相同
+         *
+         * @param tag 不带前缀和属性的标签
+         * @return 是否相同
+         */
+        private boolean matches(byte[] tag) {
+            boolean end = buffer[1] == '/';
+            int start = end ? 2 : 1;
+            int nameEnd = start;
+            while (nameEnd < length && !isNameEnd(buffer[nameEnd])) {
+                nameEnd++;
+            }
+            int localStart = start;
+            for (int i = start; i < nameEnd; i++) {
+                if (buffer[i] == ':') {
+                    localStart = i + 1;
+                }
+            }
+            boolean empty = !end && buffer[length - 2] == '/';
+            int localLength = nameEnd - localStart;
+            int expectedLength = start + localLength + (empty ? 2 : 1);
+            if (tag.length != expectedLength || end != (tag[1] == '/')
+                    || (empty ? tag[expectedLength - 2] != '/' : tag[expectedLength - 2] == '/')) {
+                return false;
+            }
+            for (int i = 0; i < localLength; i++) {
+                if (tag[start + i] != buffer[localStart + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 把缓存的标签写入输出流，需要时给元素名加上前缀
+         *
+         * @param out 输出流，为 null 时只丢弃
+         * @throws IOException IO 异常
+         */
+        private void flush(OutputStream out) throws IOException {
+            if (length > 0 && out != null) {
+                int start = length > 1 && buffer[1] == '/' ? 2 : 1;
+                if (prefix != null && length > start && buffer[start] != '?' && buffer[start] != '!') {
+                    out.write(buffer, 0, start);
+                    out.write((prefix + ":").getBytes(StandardCharsets.UTF_8));
+                    out.write(buffer, start, length - start);
+                } else {
+                    out.write(buffer, 0, length);
+                }
+            }
+            length = -1;
+        }
+
+        private static boolean isNameEnd(int c) {
+            return c == '>' || c == '/' || Character.isWhitespace(c);
+        }
+    }
+
+    /**
+     * 读取 xlsx 压缩包中的 xml
+     *
+     * @param zipFile xlsx 压缩包
+     * @param path    xml 的路径
+     * @return xml 文档
+     * @throws IOException IO 异常
+     */
+    private static Document readXml(ZipFile zipFile, String path) throws IOException {
+        ZipArchiveEntry entry = zipFile.getEntry(path);
+        if (entry == null) {
+            throw new IOException("xlsx 中缺少 " + path);
+        }
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+            return DocumentHelper.readDocument(inputStream);
+        } catch (SAXException e) {
+            throw new IOException(e.toString(), e);
+        }
+    }
+
+    /**
+     * 把 xml 文档写入压缩包
+     *
+     * @param out      压缩包输出流
+     * @param path     xml 的路径
+     * @param document xml 文档
+     * @throws IOException IO 异常
+     */
+    private static void writeXml(ZipArchiveOutputStream out, String path, Document document) throws IOException {
+        out.putArchiveEntry(new ZipArchiveEntry(path));
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.transform(new DOMSource(document), new StreamResult(out));
+        } catch (TransformerException e) {
+            throw new IOException(e.toString(), e);
+        }
+        out.closeArchiveEntry();
+    }
+}
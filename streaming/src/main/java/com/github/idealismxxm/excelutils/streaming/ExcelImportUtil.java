@@ -0,0 +1,1069 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import com.github.idealismxxm.excelutils.ExcelUtil.RowHandler;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 基于 {@link ExcelUtil#readRows(String, int, RowHandler)} 逐行读取的导入工具类：分批导入、并行校验<br>
+ * 解析与处理同时进行，内存中只保留有限的行数，适合在批处理任务中导入大文件
+ *
+ * @author idealism
+ */
+public class ExcelImportUtil {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ExcelImportUtil.class);
+
+    /**
+     * 并行校验时每块的行数
+     */
+    private final static int VALIDATION_CHUNK_SIZE = 1024;
+
+    /**
+     * 分批导入：逐行读取 sheet 的数据，每 batchSize 行组成一批，在 workers 个线程中交给 sink 写入（如 JDBC 批量插入）<br>
+     * 解析与写入同时进行；写入线程都忙且已有 workers 批在等待时暂停解析，内存中最多保留 2 * workers 批数据<br>
+     * 某一批写入失败不影响其它批次，失败原因记录在返回的导入结果中
+     *
+     * @param filePath   文件路径
+     * @param sheetIndex 表下标（下标从 0 开始）
+     * @param skipRows   跳过开头的非空行数（如表头行数）
+     * @param batchSize  每批行数
+     * @param workers    写入线程数
+     * @param sink       批数据的写入器，会在多个线程中同时调用
+     * @return 导入结果
+     * @throws IOException 读取失败
+     */
+    public static ImportResult importExcel(String filePath, int sheetIndex, int skipRows, int batchSize, int workers,
+                                           BatchSink sink) throws IOException {
+        BatchDispatcher dispatcher = new BatchDispatcher(sink, skipRows, batchSize, workers);
+        try {
+            ExcelUtil.readRows(filePath, sheetIndex, dispatcher);
+            return dispatcher.finish();
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * 分批导入
+     *
+     * @param inputStream 文件输入流
+     * @param extension   文件后缀（仅在无法从文件内容识别类型时作为参考）
+     * @param sheetIndex  表下标（下标从 0 开始）
+     * @param skipRows    跳过开头的非空行数（如表头行数）
+     * @param batchSize   每批行数
+     * @param workers     写入线程数
+     * @param sink        批数据的写入器，会在多个线程中同时调用
+     * @return 导入结果
+     * @throws IOException 读取失败
+     * @see #importExcel(String, int, int, int, int, BatchSink)
+     */
+    public static ImportResult importExcel(InputStream inputStream, String extension, int sheetIndex, int skipRows, int batchSize,
+                                           int workers, BatchSink sink) throws IOException {
+        BatchDispatcher dispatcher = new BatchDispatcher(sink, skipRows, batchSize, workers);
+        try {
+            ExcelUtil.readRows(inputStream, extension, sheetIndex, dispatcher);
+            return dispatcher.finish();
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * 批数据的写入器，如 JDBC 批量插入：
+     * <pre>
+     * batch -&gt; {
+     *     try (Connection conn = dataSource.getConnection();
+     *          PreparedStatement ps = conn.prepareStatement("insert into t(a, b) values (?, ?)")) {
+     *         for (List&lt;Object&gt; row : batch) {
+     *             ps.setObject(1, row.get(0));
+     *             ps.setObject(2, row.get(1));
+     *             ps.addBatch();
+     *         }
+     *         ps.executeBatch();
+     *     }
+     * }
+     * </pre>
+     */
+    public interface BatchSink {
+        /**
+         * 写入一批数据，会在多个线程中同时调用
+         *
+         * @param batch 一批行数据
+         * @throws Exception 写入失败，记录到该批的导入结果中
+         */
+        void write(List<List<Object>> batch) throws Exception;
+    }
+
+    /**
+     * 分批导入的结果
+     */
+    public static class ImportResult {
+        /**
+         * 各批次的结果，按批次顺序
+         */
+        private final List<BatchResult> batches;
+
+        /**
+         * 总耗时（纳秒）
+         */
+        private final long elapsedNanos;
+
+        ImportResult(List<BatchResult> batches, long elapsedNanos) {
+            this.batches = batches;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return 各批次的结果，按批次顺序
+         */
+        public List<BatchResult> getBatches() {
+            return batches;
+        }
+
+        /**
+         * @return 写入失败的批次
+         */
+        public List<BatchResult> getFailedBatches() {
+            List<BatchResult> failedBatches = new ArrayList<>();
+            for (BatchResult batch : batches) {
+                if (!batch.isSuccess()) {
+                    failedBatches.add(batch);
+                }
+            }
+            return failedBatches;
+        }
+
+        /**
+         * @return 写入成功的行数
+         */
+        public long getImportedRows() {
+            long rows = 0;
+            for (BatchResult batch : batches) {
+                if (batch.isSuccess()) {
+                    rows += batch.getRowCount();
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * @return 写入失败的行数
+         */
+        public long getFailedRows() {
+            long rows = 0;
+            for (BatchResult batch : getFailedBatches()) {
+                rows += batch.getRowCount();
+            }
+            return rows;
+        }
+
+        /**
+         * @return 从开始读取到全部批次写入完成的总耗时（纳秒）
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "ImportResult{batches=" + batches.size() + ", importedRows=" + getImportedRows()
+                    + ", failedRows=" + getFailedRows() + ", elapsedMillis=" + elapsedNanos / 1000000 + "}";
+        }
+    }
+
+    /**
+     * 一批数据的写入结果
+     */
+    public static class BatchResult {
+        /**
+         * 批次下标（从 0 开始）
+         */
+        private final int index;
+
+        /**
+         * 该批第一行在导入数据中的下标（从 0 开始，不计跳过的行和空行）
+         */
+        private final long firstRow;
+
+        /**
+         * 该批行数
+         */
+        private final int rowCount;
+
+        /**
+         * 写入耗时（纳秒）
+         */
+        private final long nanos;
+
+        /**
+         * 写入失败的原因，成功时为 null
+         */
+        private final Throwable failure;
+
+        BatchResult(int index, long firstRow, int rowCount, long nanos, Throwable failure) {
+            this.index = index;
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.nanos = nanos;
+            this.failure = failure;
+        }
+
+        /**
+         * @return 批次下标（从 0 开始）
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return 该批第一行在导入数据中的下标（从 0 开始，不计跳过的行和空行）
+         */
+        public long getFirstRow() {
+            return firstRow;
+        }
+
+        /**
+         * @return 该批行数
+         */
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return 写入耗时（纳秒）
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return 写入失败的原因，成功时为 null
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return true：写入成功
+         */
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        @Override
+        public String toString() {
+            return "BatchResult{index=" + index + ", firstRow=" + firstRow + ", rowCount=" + rowCount
+                    + ", nanos=" + nanos + ", failure=" + failure + "}";
+        }
+    }
+
+    /**
+     * 把逐行读取的数据分批提交到写入线程池；每批提交前获取许可，许可数为 2 * workers，
+     * 写入线程都忙且等待的批次已满时阻塞读取线程，从而限制内存中的批数
+     */
+    private static class BatchDispatcher implements RowHandler {
+        /**
+         * 批数据的写入器
+         */
+        private final BatchSink sink;
+
+        /**
+         * 跳过开头的行数
+         */
+        private final int skipRows;
+
+        /**
+         * 每批行数
+         */
+        private final int batchSize;
+
+        /**
+         * 写入线程池
+         */
+        private final ExecutorService executor;
+
+        /**
+         * 未写完的批次许可
+         */
+        private final Semaphore permits;
+
+        /**
+         * 已完成批次的结果
+         */
+        private final List<BatchResult> results = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * 开始时间（纳秒）
+         */
+        private final long startNanos = System.nanoTime();
+
+        /**
+         * 当前批的数据
+         */
+        private List<List<Object>> batch;
+
+        /**
+         * 已读取的行数（包括跳过的行）
+         */
+        private long rowCount;
+
+        /**
+         * 已提交的批数
+         */
+        private int batchCount;
+
+        BatchDispatcher(BatchSink sink, int skipRows, int batchSize, int workers) {
+            if (batchSize <= 0 || workers <= 0) {
+                throw new IllegalArgumentException("batchSize 和 workers 必须大于 0");
+            }
+            this.sink = sink;
+            this.skipRows = skipRows;
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+            this.permits = new Semaphore(2 * workers);
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "excel-import-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void handle(int rowIndex, List<Object> rowData) throws IOException {
+            if (rowCount++ < skipRows) {
+                return;
+            }
+            batch.add(rowData);
+            if (batch.size() >= batchSize) {
+                dispatch();
+            }
+        }
+
+        /**
+         * 提交当前批，写入线程都忙且等待的批次已满时阻塞
+         *
+         * @throws IOException 等待时被中断
+         */
+        private void dispatch() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("导入被中断");
+            }
+            List<List<Object>> data = batch;
+            int index = batchCount++;
+            long firstRow = rowCount - skipRows - data.size();
+            batch = new ArrayList<>(batchSize);
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                Throwable failure = null;
+                try {
+                    sink.write(data);
+                } catch (Throwable e) {
+                    LOGGER.error("#importExcel batch " + index + " error.", e);
+                    failure = e;
+                } finally {
+                    results.add(new BatchResult(index, firstRow, data.size(), System.nanoTime() - start, failure));
+                    permits.release();
+                }
+            });
+        }
+
+        /**
+         * 提交最后一批，并等待所有批次写入完成
+         *
+         * @return 导入结果
+         * @throws IOException 等待时被中断
+         */
+        ImportResult finish() throws IOException {
+            dispatch();
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.info("#importExcel waiting for " + (batchCount - results.size()) + " batches");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("导入被中断");
+            }
+            List<BatchResult> batches = new ArrayList<>(results);
+            batches.sort(Comparator.comparingInt(BatchResult::getIndex));
+            return new ImportResult(batches, System.nanoTime() - startNanos);
+        }
+
+        /**
+         * 读取失败时停止写入线程
+         */
+        void shutdown() {
+            if (!executor.isTerminated()) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 逐行读取 sheet 的数据并校验，校验在 workers 个线程中按块（{@value #VALIDATION_CHUNK_SIZE} 行）并行进行，
+     * 读取与校验同时进行，内存中最多保留 2 * workers 块数据<br>
+     * 开启快速失败时，错误数达到上限后立即停止读取，不必解析完整个文件
+     *
+     * @param filePath   文件路径
+     * @param sheetIndex 表下标（下标从 0 开始）
+     * @param skipRows   跳过开头的非空行数（如表头行数）
+     * @param validator  校验规则
+     * @param workers    校验线程数
+     * @return 校验结果
+     * @throws IOException 读取失败
+     */
+    public static ValidationReport validateExcel(String filePath, int sheetIndex, int skipRows, RowValidator validator,
+                                                 int workers) throws IOException {
+        ValidationRun run = new ValidationRun(validator, skipRows, workers);
+        try {
+            try {
+                ExcelUtil.readRows(filePath, sheetIndex, run);
+            } catch (ValidationAbortedException e) {
+                // 快速失败，已停止读取
+            }
+            return run.finish();
+        } finally {
+            run.shutdown();
+        }
+    }
+
+    /**
+     * 并行校验已读取的数据，错误中的行下标为 sheetData 中的下标
+     *
+     * @param sheetData 数据，如 {@link ExcelUtil#getSheetData(Workbook, Sheet)} 的返回值
+     * @param skipRows  跳过开头的行数（如表头行数）
+     * @param validator 校验规则
+     * @param workers   校验线程数
+     * @return 校验结果
+     * @throws IOException 等待校验时被中断
+     * @see #validateExcel(String, int, int, RowValidator, int)
+     */
+    public static ValidationReport validateSheetData(List<List<Object>> sheetData, int skipRows, RowValidator validator,
+                                                     int workers) throws IOException {
+        ValidationRun run = new ValidationRun(validator, skipRows, workers);
+        try {
+            try {
+                for (int i = 0; i < sheetData.size(); i++) {
+                    run.handle(i, sheetData.get(i));
+                }
+            } catch (ValidationAbortedException e) {
+                // 快速失败
+            }
+            return run.finish();
+        } finally {
+            run.shutdown();
+        }
+    }
+
+    /**
+     * 单元格校验规则
+     */
+    public interface CellRule {
+        /**
+         * 校验单元格值
+         *
+         * @param value 单元格值，与 {@link ExcelUtil#getCellValue(Cell)} 一致，空单元格为 null
+         * @return 错误信息，校验通过返回 null
+         */
+        String check(Object value);
+    }
+
+    /**
+     * 行校验规则，用于多列之间的校验
+     */
+    public interface RowRule {
+        /**
+         * 校验行数据
+         *
+         * @param rowData 行数据
+         * @return 错误信息，校验通过返回 null
+         */
+        String check(List<Object> rowData);
+    }
+
+    /**
+     * 声明式的行校验规则，如：
+     * <pre>
+     * new RowValidator()
+     *         .required(0)
+     *         .pattern(1, "1[3-9]\\d{9}")
+     *         .range(2, 0, 150)
+     *         .rule(row -&gt; row.get(3) == null &amp;&amp; row.get(4) == null ? "邮箱和电话至少填一个" : null)
+     *         .maxErrors(100)
+     *         .failFast(true);
+     * </pre>
+     * 非必填规则对空单元格不做校验；同一单元格只记录第一条不通过的规则
+     */
+    public static class RowValidator {
+        /**
+         * 各列的校验规则
+         */
+        private final TreeMap<Integer, List<CellRule>> columnRules = new TreeMap<>();
+
+        /**
+         * 行校验规则
+         */
+        private final List<RowRule> rowRules = new ArrayList<>();
+
+        /**
+         * 错误报告中最多保留的错误数
+         */
+        private int maxErrors = 100;
+
+        /**
+         * 错误数达到上限后是否停止校验
+         */
+        private boolean failFast;
+
+        /**
+         * 必填
+         *
+         * @param columnIndex 列下标
+         * @return this
+         */
+        public RowValidator required(int columnIndex) {
+            columnRules.computeIfAbsent(checkColumnIndex(columnIndex), k -> new ArrayList<>())
+                    .add(0, value -> value == null || StringUtils.isBlank(value.toString()) ? "不能为空" : null);
+            return this;
+        }
+
+        /**
+         * 匹配正则表达式，正则表达式只编译一次
+         *
+         * @param columnIndex 列下标
+         * @param regex       正则表达式
+         * @return this
+         */
+        public RowValidator pattern(int columnIndex, String regex) {
+            Pattern pattern = Pattern.compile(regex);
+            return rule(columnIndex, value -> value == null || pattern.matcher(value.toString()).matches()
+                    ? null : "格式不正确");
+        }
+
+        /**
+         * 数值在 [min, max] 范围内，文本按数字解析
+         *
+         * @param columnIndex 列下标
+         * @param min         最小值
+         * @param max         最大值
+         * @return this
+         */
+        public RowValidator range(int columnIndex, double min, double max) {
+            String message = "超出范围 [" + min + ", " + max + "]";
+            return rule(columnIndex, value -> {
+                if (value == null) {
+                    return null;
+                }
+                double number;
+                if (value instanceof Number) {
+                    number = ((Number) value).doubleValue();
+                } else {
+                    try {
+                        number = Double.parseDouble(value.toString().trim());
+                    } catch (NumberFormatException e) {
+                        return "不是数字";
+                    }
+                }
+                return number < min || number > max ? message : null;
+            });
+        }
+
+        /**
+         * 自定义单元格校验规则
+         *
+         * @param columnIndex 列下标
+         * @param rule        校验规则
+         * @return this
+         */
+        public RowValidator rule(int columnIndex, CellRule rule) {
+            columnRules.computeIfAbsent(checkColumnIndex(columnIndex), k -> new ArrayList<>()).add(rule);
+            return this;
+        }
+
+        /**
+         * 自定义行校验规则
+         *
+         * @param rule 校验规则
+         * @return this
+         */
+        public RowValidator rule(RowRule rule) {
+            rowRules.add(rule);
+            return this;
+        }
+
+        /**
+         * @param maxErrors 错误报告中最多保留的错误数，默认 100
+         * @return this
+         */
+        public RowValidator maxErrors(int maxErrors) {
+            if (maxErrors < 0) {
+                throw new IllegalArgumentException("错误数上限不能小于 0");
+            }
+            this.maxErrors = maxErrors;
+            return this;
+        }
+
+        /**
+         * @param failFast 错误数达到上限后是否停止校验，默认 false
+         * @return this
+         */
+        public RowValidator failFast(boolean failFast) {
+            this.failFast = failFast;
+            return this;
+        }
+
+        private static int checkColumnIndex(int columnIndex) {
+            if (columnIndex < 0) {
+                throw new IllegalArgumentException("列下标不能小于 0");
+            }
+            return columnIndex;
+        }
+
+        /**
+         * 把各列的规则编译为以列下标为下标的数组，校验时不再查找 Map
+         *
+         * @return 各列的校验规则，没有规则的列为 null
+         */
+        CellRule[][] compile() {
+            int columnCount = columnRules.isEmpty() ? 0 : columnRules.lastKey() + 1;
+            CellRule[][] rules = new CellRule[columnCount][];
+            for (Map.Entry<Integer, List<CellRule>> entry : columnRules.entrySet()) {
+                rules[entry.getKey()] = entry.getValue().toArray(new CellRule[0]);
+            }
+            return rules;
+        }
+    }
+
+    /**
+     * 校验结果
+     */
+    public static class ValidationReport {
+        /**
+         * 保留的错误，按行、列排序
+         */
+        private final List<CellError> errors;
+
+        /**
+         * 错误总数（包括超出上限未保留的）
+         */
+        private final long errorCount;
+
+        /**
+         * 已校验的行数
+         */
+        private final long rowCount;
+
+        /**
+         * 是否因快速失败而提前停止
+         */
+        private final boolean aborted;
+
+        ValidationReport(List<CellError> errors, long errorCount, long rowCount, boolean aborted) {
+            this.errors = errors;
+            this.errorCount = errorCount;
+            this.rowCount = rowCount;
+            this.aborted = aborted;
+        }
+
+        /**
+         * @return 保留的错误，按行、列排序，最多 maxErrors 条
+         */
+        public List<CellError> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return 错误总数（包括超出上限未保留的）
+         */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return 已校验的行数
+         */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return true：因快速失败而提前停止，后面的行没有校验
+         */
+        public boolean isAborted() {
+            return aborted;
+        }
+
+        /**
+         * @return true：没有错误
+         */
+        public boolean isValid() {
+            return errorCount == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "ValidationReport{rowCount=" + rowCount + ", errorCount=" + errorCount + ", aborted=" + aborted
+                    + ", errors=" + errors + "}";
+        }
+    }
+
+    /**
+     * 单元格的校验错误
+     */
+    public static class CellError {
+        /**
+         * 行下标
+         */
+        private final int rowIndex;
+
+        /**
+         * 列下标，行校验规则的错误为 -1
+         */
+        private final int columnIndex;
+
+        /**
+         * 单元格值
+         */
+        private final Object value;
+
+        /**
+         * 错误信息
+         */
+        private final String message;
+
+        CellError(int rowIndex, int columnIndex, Object value, String message) {
+            this.rowIndex = rowIndex;
+            this.columnIndex = columnIndex;
+            this.value = value;
+            this.message = message;
+        }
+
+        /**
+         * @return 行下标
+         */
+        public int getRowIndex() {
+            return rowIndex;
+        }
+
+        /**
+         * @return 列下标，行校验规则的错误为 -1
+         */
+        public int getColumnIndex() {
+            return columnIndex;
+        }
+
+        /**
+         * @return 单元格值，行校验规则的错误为 null
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * @return 错误信息
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            String position = columnIndex < 0 ? "第" + (rowIndex + 1) + "行" : new CellReference(rowIndex, columnIndex).formatAsString();
+            return position + ": " + message;
+        }
+    }
+
+    /**
+     * 快速失败时终止读取
+     */
+    private static class ValidationAbortedException extends IOException {
+        ValidationAbortedException() {
+            super("校验错误数达到上限");
+        }
+    }
+
+    /**
+     * 一次校验：把读取的行分块提交到校验线程池，每块提交前获取许可，许可数为 2 * workers；
+     * 错误报告只保留行、列最小的 maxErrors 条，因此并行校验的结果与顺序校验一致（快速失败除外）
+     */
+    private static class ValidationRun implements RowHandler {
+        /**
+         * 各列的校验规则
+         */
+        private final CellRule[][] cellRules;
+
+        /**
+         * 行校验规则
+         */
+        private final RowRule[] rowRules;
+
+        /**
+         * 跳过开头的行数
+         */
+        private final int skipRows;
+
+        /**
+         * 错误报告中最多保留的错误数
+         */
+        private final int maxErrors;
+
+        /**
+         * 错误数达到上限后是否停止校验
+         */
+        private final boolean failFast;
+
+        /**
+         * 校验线程池
+         */
+        private final ExecutorService executor;
+
+        /**
+         * 未校验完的块许可
+         */
+        private final Semaphore permits;
+
+        /**
+         * 错误的顺序：按行、列排序，同一单元格的多条错误保持记录的顺序
+         */
+        private static final Comparator<CellError> ERROR_ORDER =
+                Comparator.comparingInt(CellError::getRowIndex).thenComparingInt(CellError::getColumnIndex);
+
+        /**
+         * 记录的错误，未排序；超过 2 * maxErrors 条时排序并只保留前 maxErrors 条
+         */
+        private final List<CellError> errors = new ArrayList<>();
+
+        /**
+         * 错误总数
+         */
+        private final AtomicLong errorCount = new AtomicLong();
+
+        /**
+         * 已校验的行数
+         */
+        private final AtomicLong rowCount = new AtomicLong();
+
+        /**
+         * 是否已快速失败
+         */
+        private volatile boolean aborted;
+
+        /**
+         * 当前块的行下标
+         */
+        private int[] chunkRowIndexes = new int[VALIDATION_CHUNK_SIZE];
+
+        /**
+         * 当前块的行数据
+         */
+        private List<List<Object>> chunk = new ArrayList<>(VALIDATION_CHUNK_SIZE);
+
+        /**
+         * 已读取的行数（包括跳过的行）
+         */
+        private long readCount;
+
+        ValidationRun(RowValidator validator, int skipRows, int workers) {
+            if (workers <= 0) {
+                throw new IllegalArgumentException("workers 必须大于 0");
+            }
+            this.cellRules = validator.compile();
+            this.rowRules = validator.rowRules.toArray(new RowRule[0]);
+            this.skipRows = skipRows;
+            this.maxErrors = validator.maxErrors;
+            this.failFast = validator.failFast;
+            this.permits = new Semaphore(2 * workers);
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "excel-validate-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void handle(int rowIndex, List<Object> rowData) throws IOException {
+            if (aborted) {
+                throw new ValidationAbortedException();
+            }
+            if (readCount++ < skipRows) {
+                return;
+            }
+            chunkRowIndexes[chunk.size()] = rowIndex;
+            chunk.add(rowData);
+            if (chunk.size() >= VALIDATION_CHUNK_SIZE) {
+                dispatch();
+            }
+        }
+
+        /**
+         * 提交当前块，校验线程都忙且等待的块已满时阻塞
+         *
+         * @throws IOException 等待时被中断
+         */
+        private void dispatch() throws IOException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("校验被中断");
+            }
+            int[] rowIndexes = chunkRowIndexes;
+            List<List<Object>> rows = chunk;
+            chunkRowIndexes = new int[VALIDATION_CHUNK_SIZE];
+            chunk = new ArrayList<>(VALIDATION_CHUNK_SIZE);
+            executor.execute(() -> {
+                try {
+                    for (int i = 0; i < rows.size() && !aborted; i++) {
+                        validateRow(rowIndexes[i], rows.get(i));
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        /**
+         * 校验一行，每个单元格只记录第一条不通过的规则
+         *
+         * @param rowIndex 行下标
+         * @param rowData  行数据
+         */
+        private void validateRow(int rowIndex, List<Object> rowData) {
+            for (int j = 0; j < cellRules.length; j++) {
+                CellRule[] rules = cellRules[j];
+                if (rules == null) {
+                    continue;
+                }
+                Object value = j < rowData.size() ? rowData.get(j) : null;
+                for (CellRule rule : rules) {
+                    String message = check(rule, value);
+                    if (message != null) {
+                        addError(new CellError(rowIndex, j, value, message));
+                        break;
+                    }
+                }
+            }
+            for (RowRule rule : rowRules) {
+                String message;
+                try {
+                    message = rule.check(rowData);
+                } catch (RuntimeException e) {
+                    message = "校验异常：" + e;
+                }
+                if (message != null) {
+                    addError(new CellError(rowIndex, -1, null, message));
+                }
+            }
+            rowCount.incrementAndGet();
+        }
+
+        /**
+         * 执行单元格规则，规则抛出的异常作为错误信息
+         *
+         * @param rule  规则
+         * @param value 单元格值
+         * @return 错误信息，校验通过返回 null
+         */
+        private String check(CellRule rule, Object value) {
+            try {
+                return rule.check(value);
+            } catch (RuntimeException e) {
+                return "校验异常：" + e;
+            }
+        }
+
+        /**
+         * 记录错误，只保留行、列最小的 maxErrors 条；不去重，与错误总数一致
+         *
+         * @param error 错误
+         */
+        private void addError(CellError error) {
+            long count = errorCount.incrementAndGet();
+            synchronized (errors) {
+                errors.add(error);
+                if (errors.size() > 2 * maxErrors) {
+                    truncateErrors();
+                }
+            }
+            if (failFast && count >= maxErrors) {
+                aborted = true;
+            }
+        }
+
+        /**
+         * 提交最后一块，并等待所有块校验完成
+         *
+         * @return 校验结果
+         * @throws IOException 等待时被中断
+         */
+        ValidationReport finish() throws IOException {
+            if (!aborted) {
+                dispatch();
+            }
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.info("#validateExcel waiting for validation");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("校验被中断");
+            }
+            List<CellError> result;
+            synchronized (errors) {
+                truncateErrors();
+                result = new ArrayList<>(errors);
+            }
+            return new ValidationReport(result, errorCount.get(), rowCount.get(), aborted);
+        }
+
+        /**
+         * 把记录的错误排序，只保留前 maxErrors 条，调用方持有 errors 的锁
+         */
+        private void truncateErrors() {
+            errors.sort(ERROR_ORDER);
+            if (errors.size() > maxErrors) {
+                errors.subList(maxErrors, errors.size()).clear();
+            }
+        }
+
+        /**
+         * 读取失败时停止校验线程
+         */
+        void shutdown() {
+            if (!executor.isTerminated()) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
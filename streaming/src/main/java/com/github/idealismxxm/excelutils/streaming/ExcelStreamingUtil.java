@@ -0,0 +1,1490 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import com.github.idealismxxm.excelutils.ExcelUtil.ReadExtension;
+import com.github.idealismxxm.excelutils.ExcelUtil.ReadQuery;
+import com.github.idealismxxm.excelutils.ExcelUtil.RowHandler;
+import com.github.idealismxxm.excelutils.ExcelUtil.SheetReader;
+import com.github.idealismxxm.excelutils.ExcelUtil.WorkbookReader;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * xlsx 的 SAX 流式读取、workbook 缓存和读取内存预算<br>
+ * 类路径上有本模块时，{@link ExcelUtil} 通过 {@link StreamingReadExtension} 读取 xls / xlsx：
+ * 达到流式阈值的 xlsx 和逐行读取的 xlsx 以 SAX 流式解析，不构建 workbook 的对象模型；
+ * 按对象模型读取时经过 workbook 缓存和读取内存预算（开启时）
+ *
+ * @author idealism
+ */
+public class ExcelStreamingUtil {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ExcelStreamingUtil.class);
+
+    /**
+     * office2003 文件类型
+     */
+    private final static String XLS = "xls";
+
+    /**
+     * office2007 文件类型
+     */
+    private final static String XLSX = "xlsx";
+
+    /**
+     * 流式解析 xlsx 时，共享字符串表（解压后）达到该大小（字节）则存放到临时文件中，默认 64MB
+     */
+    private static volatile long sharedStringsSpillThreshold = 64L * 1024 * 1024;
+
+    /**
+     * 共享字符串表存放到临时文件时，堆内缓存的最近使用的字符串个数
+     */
+    private final static int SHARED_STRINGS_CACHE_SIZE = 10000;
+
+    /**
+     * 按对象模型读取 xlsx 时，堆内存占用约为解压后 xml 大小的倍数（实测约 13 倍）
+     */
+    private final static int XSSF_BYTES_PER_XML_BYTE = 14;
+
+    /**
+     * 按对象模型读取 xlsx 时，每个单元格占用的堆内存（字节，实测约 700）
+     */
+    private final static int XSSF_BYTES_PER_CELL = 700;
+
+    /**
+     * 读取 xls 时，堆内存占用约为文件大小的倍数（实测约 8 倍）
+     */
+    private final static int HSSF_BYTES_PER_FILE_BYTE = 8;
+
+    /**
+     * 检查压缩比的条目大小（解压后，字节）下限，更小的条目即使压缩比很高也不会占用太多内存
+     */
+    private final static long COMPRESSION_RATIO_MIN_ENTRY_SIZE = 1024L * 1024;
+
+    /**
+     * 查找 worksheet 的 dimension 时预读的字节数，dimension 位于 sheetData 之前
+     */
+    private final static int DIMENSION_PEEK_SIZE = 4096;
+
+    /**
+     * worksheet 中的 dimension，如 &lt;dimension ref="A1:F1000"/&gt;
+     */
+    private final static Pattern DIMENSION_PATTERN = Pattern.compile("<(?:\\w+:)?dimension\\s+ref=\"([A-Z]+[0-9]+)(?::([A-Z]+[0-9]+))?\"");
+
+    /**
+     * 读取的内存预算，为 null 表示不限制
+     */
+    private static volatile MemoryBudget readMemoryBudget;
+
+    /**
+     * 开启读取内存预算时，xlsx 条目允许的最大压缩比（解压后大小 / 压缩后大小）
+     */
+    private static volatile int maxCompressionRatio = 100;
+
+    /**
+     * 按路径读取时使用的 workbook 缓存，为 null 表示不缓存
+     */
+    private static volatile WorkbookCache workbookCache;
+
+    /**
+     * 以 SAX 流式解析 xlsx 文件的指定 sheet，不构建 workbook 的对象模型，单元格值与 {@link ExcelUtil#getCellValue(Cell)} 一致<br>
+     * 开启读取内存预算时先复制到临时文件，以文件方式打开
+     *
+     * @param inputStream 文件输入流
+     * @param sheetIndex  表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName   表名
+     * @return sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常，包括不是 xlsx 文件
+     */
+    public static List<List<Object>> readXlsxStreaming(InputStream inputStream, int sheetIndex, String sheetName) throws IOException {
+        inputStream = FileMagic.prepareToCheckMagic(inputStream);
+        if (!XLSX.equals(ExcelUtil.detectExtension(inputStream, null))) {
+            throw new IOException("不支持的文件类型");
+        }
+        List<List<Object>> list = new ArrayList<>();
+        ExcelUtil.readRows(inputStream, XLSX, query(sheetIndex, sheetName), (rowIndex, rowData) -> list.add(rowData));
+        return list;
+    }
+
+    /**
+     * 以 SAX 流式解析 xlsx 文件的指定 sheet，直接以文件方式打开，只解压用到的 sheet、共享字符串表和样式表
+     *
+     * @param file       文件
+     * @param sheetIndex 表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName  表名
+     * @return sheet 的所有数据（包含表头）
+     * @throws IOException IO 异常，包括不是 xlsx 文件
+     */
+    public static List<List<Object>> readXlsxStreaming(File file, int sheetIndex, String sheetName) throws IOException {
+        if (!XLSX.equals(ExcelUtil.detectExtension(file))) {
+            throw new IOException("不支持的文件类型");
+        }
+        List<List<Object>> list = new ArrayList<>();
+        ExcelUtil.readRows(file.getPath(), query(sheetIndex, sheetName), (rowIndex, rowData) -> list.add(rowData));
+        return list;
+    }
+
+    /**
+     * @param sheetIndex 表下标（下标从 0 开始），sheetName 不为 null 时忽略
+     * @param sheetName  表名
+     * @return 读取指定 sheet 所有行和列的查询
+     */
+    private static ReadQuery query(int sheetIndex, String sheetName) {
+        return sheetName == null ? ReadQuery.sheet(sheetIndex) : ReadQuery.sheet(sheetName);
+    }
+
+    /**
+     * 通过 {@link java.util.ServiceLoader} 注册的读取扩展：xlsx 按需以 SAX 流式解析，按对象模型读取时使用 workbook 缓存，
+     * 开启读取内存预算时预留预计占用的堆内存
+     */
+    public static class StreamingReadExtension implements ReadExtension {
+
+        /**
+         * 逐行读取文件中指定 sheet 的数据<br>
+         * 开启读取内存预算时，按对象模型读取前先预留预计占用的堆内存；xlsx 超出预算或暂时预留不到时改用 SAX 流式解析
+         */
+        @Override
+        public void readSheet(File file, String fileType, boolean streaming, SheetReader reader) throws IOException {
+            ExcelStreamingUtil.readSheet(file, fileType, streaming, workbookCache, reader);
+        }
+
+        /**
+         * 逐行读取输入流中指定 sheet 的数据：开启读取内存预算时以文件方式读取，xlsx 流式解析时以输入流打开压缩包
+         */
+        @Override
+        public void readSheet(InputStream inputStream, String fileType, boolean streaming, SheetReader reader) throws IOException {
+            if (readMemoryBudget != null && (XLS.equals(fileType) || XLSX.equals(fileType))) {
+                // 开启读取内存预算时以文件方式读取：可以在解压前检查大小，xlsx 也不需要把整个压缩包解压到内存
+                File tempFile = copyToTempFile(inputStream, fileType);
+                try {
+                    ExcelStreamingUtil.readSheet(tempFile, fileType, streaming, null, reader);
+                } finally {
+                    ExcelUtil.deleteTempFile(tempFile);
+                }
+                return;
+            }
+            if (XLSX.equals(fileType) && streaming) {
+                OPCPackage pkg;
+                try {
+                    pkg = OPCPackage.open(inputStream);
+                } catch (OpenXML4JException e) {
+                    throw new IOException("不支持的文件类型", e);
+                }
+                reader.opened();
+                try {
+                    readXlsxStreaming(pkg, reader);
+                } finally {
+                    // 只读，不回写文件
+                    pkg.revert();
+                }
+                return;
+            }
+            ReadExtension.super.readSheet(inputStream, fileType, streaming, reader);
+        }
+
+        /**
+         * 打开文件对应的 workbook 并读取数据，开启了 workbook 缓存时优先使用缓存的 workbook<br>
+         * 开启读取内存预算时，读取期间预留预计占用的堆内存，超出预算则抛出 {@link ReadLimitExceededException}
+         */
+        @Override
+        public <R> R readWorkbook(File file, String fileType, WorkbookReader<R> reader) throws IOException {
+            try (MemoryReservation ignored = reserveWorkbookMemory(file, fileType)) {
+                return ExcelStreamingUtil.readWorkbook(file, fileType, workbookCache, reader);
+            }
+        }
+
+        /**
+         * 开启读取内存预算时，预计占用的堆内存超出预算则抛出 {@link ReadLimitExceededException}；
+         * workbook 由调用方持有，占用的内存不计入预算
+         */
+        @Override
+        public void checkWorkbook(File file, String fileType) throws IOException {
+            checkWorkbookMemory(file, fileType);
+        }
+
+        /**
+         * 开启读取内存预算时先复制到临时文件，检查通过后再解析
+         */
+        @Override
+        public Workbook openWorkbook(InputStream inputStream, String fileType) throws IOException {
+            if (readMemoryBudget != null && (XLS.equals(fileType) || XLSX.equals(fileType))) {
+                File tempFile = copyToTempFile(inputStream, fileType);
+                try (InputStream tempInputStream = new FileInputStream(tempFile)) {
+                    checkWorkbookMemory(tempFile, fileType);
+                    return ReadExtension.super.openWorkbook(tempInputStream, fileType);
+                } finally {
+                    ExcelUtil.deleteTempFile(tempFile);
+                }
+            }
+            return ReadExtension.super.openWorkbook(inputStream, fileType);
+        }
+    }
+
+    /**
+     * 逐行读取文件中指定 sheet 的数据
+     *
+     * @param file      文件
+     * @param fileType  识别出的文件类型
+     * @param streaming xlsx 是否以 SAX 流式解析，否则按对象模型读取
+     * @param cache     按对象模型读取时使用的 workbook 缓存，为 null 表示不缓存
+     * @param reader    要读取的 sheet 和行数据的处理器
+     * @throws IOException IO 异常，包括行数据的处理器抛出的异常
+     */
+    private static void readSheet(File file, String fileType, boolean streaming, WorkbookCache cache, SheetReader reader)
+            throws IOException {
+        MemoryReservation reservation = XLSX.equals(fileType) ? tryReserveXlsxMemory(file, streaming) : null;
+        if (XLSX.equals(fileType) && reservation == null) {
+            OPCPackage pkg;
+            try {
+                pkg = OPCPackage.open(file, PackageAccess.READ);
+            } catch (InvalidFormatException e) {
+                throw new IOException("不支持的文件类型", e);
+            }
+            reader.opened();
+            try {
+                readXlsxStreaming(pkg, reader);
+            } finally {
+                pkg.revert();
+            }
+            return;
+        }
+        try (MemoryReservation ignored = reservation != null ? reservation : reserveWorkbookMemory(file, fileType)) {
+            // 命中缓存时打开耗时接近 0
+            readWorkbook(file, fileType, cache, workbook -> {
+                reader.read(workbook);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 打开 workbook 并读取数据，不预留读取内存预算
+     *
+     * @param file     文件
+     * @param fileType 识别出的文件类型
+     * @param cache    workbook 缓存，为 null 表示不缓存
+     * @param reader   读取数据的方法
+     * @param <R>      数据类型
+     * @return 读取的数据
+     * @throws IOException IO 异常
+     */
+    private static <R> R readWorkbook(File file, String fileType, WorkbookCache cache, WorkbookReader<R> reader) throws IOException {
+        if (cache != null) {
+            return cache.read(file, fileType, reader);
+        }
+        try (Workbook workbook = ReadExtension.DEFAULT.openWorkbook(file, fileType)) {
+            return reader.read(workbook);
+        }
+    }
+
+    /**
+     * 以 SAX 流式解析 xlsx 包中要读取的 sheet，逐个单元格交给 reader，由 reader 跳过空行和不满足条件的行
+     *
+     * @param pkg    xlsx 包
+     * @param reader 要读取的 sheet 和行数据的处理器
+     * @throws IOException IO 异常，包括行数据的处理器抛出的异常
+     */
+    private static void readXlsxStreaming(OPCPackage pkg, SheetReader reader) throws IOException {
+        int sheetIndex = reader.getSheetIndex();
+        String sheetName = reader.getSheetName();
+        try {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            StylesTable stylesTable = xssfReader.getStylesTable();
+            boolean date1904 = isDate1904(xssfReader);
+
+            XSSFReader.SheetIterator sheetIterator = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+            int index = 0;
+            while (sheetIterator.hasNext()) {
+                try (InputStream sheetInputStream = sheetIterator.next()) {
+                    if (sheetName == null ? index == sheetIndex : sheetName.equals(sheetIterator.getSheetName())) {
+                        reader.startSheet(sheetIterator.getSheetName());
+                        SharedStrings sharedStrings = getSharedStrings(pkg);
+                        try {
+                            XlsxSheetHandler handler = new XlsxSheetHandler(sharedStrings, stylesTable, date1904, reader);
+                            XMLReader xmlReader = XMLHelper.newXMLReader();
+                            xmlReader.setContentHandler(handler);
+                            xmlReader.parse(new InputSource(sheetInputStream));
+                            return;
+                        } finally {
+                            if (sharedStrings instanceof Closeable) {
+                                ((Closeable) sharedStrings).close();
+                            }
+                        }
+                    }
+                }
+                index++;
+            }
+        } catch (SAXException e) {
+            if (e.getException() instanceof IOException) {
+                throw (IOException) e.getException();
+            }
+            throw new IOException(e.toString(), e);
+        } catch (OpenXML4JException | ParserConfigurationException e) {
+            throw new IOException(e.toString(), e);
+        }
+        throw new IOException("不存在的sheet：" + (sheetName == null ? sheetIndex : sheetName));
+    }
+
+    /**
+     * 获取 xlsx 的共享字符串表，解压后大小达到阈值时存放到临时文件中，否则全部加载到堆内
+     *
+     * @param pkg xlsx 包
+     * @return 共享字符串表，如果实现了 {@link Closeable} 则使用完需要关闭
+     * @throws IOException                  IO 异常
+     * @throws SAXException                 解析异常
+     * @throws ParserConfigurationException 解析器配置异常
+     */
+    private static SharedStrings getSharedStrings(OPCPackage pkg) throws IOException, SAXException, ParserConfigurationException {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (!parts.isEmpty() && parts.get(0).getSize() >= sharedStringsSpillThreshold) {
+            return FileSharedStrings.create(parts.get(0));
+        }
+        return new ReadOnlySharedStringsTable(pkg, false);
+    }
+
+    /**
+     * 判断 xlsx 是否使用 1904 日期系统
+     *
+     * @param reader xlsx 读取器
+     * @return true：1904 日期系统；false：1900 日期系统
+     * @throws IOException        IO 异常
+     * @throws OpenXML4JException xlsx 包结构异常
+     */
+    private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException {
+        try (InputStream workbookInputStream = reader.getWorkbookData()) {
+            CTWorkbook ctWorkbook = WorkbookDocument.Factory.parse(workbookInputStream).getWorkbook();
+            return ctWorkbook.isSetWorkbookPr() && ctWorkbook.getWorkbookPr().getDate1904();
+        } catch (XmlException e) {
+            throw new IOException(e.toString(), e);
+        }
+    }
+
+    /**
+     * xlsx sheet 的 SAX 解析器，逐行解析单元格，不解码 reader 不需要的列，值交给 reader 过滤
+     */
+    private static class XlsxSheetHandler extends DefaultHandler {
+        /**
+         * 共享字符串表
+         */
+        private final SharedStrings sharedStrings;
+
+        /**
+         * 样式表
+         */
+        private final StylesTable stylesTable;
+
+        /**
+         * 是否使用 1904 日期系统
+         */
+        private final boolean date1904;
+
+        /**
+         * 要读取的 sheet 和行数据的处理器
+         */
+        private final SheetReader reader;
+
+        /**
+         * 当前行的下标
+         */
+        private int rowIndex = -1;
+
+        /**
+         * 当前单元格的列下标
+         */
+        private int columnIndex;
+
+        /**
+         * 是否跳过当前单元格（未选中的列）
+         */
+        private boolean skipped;
+
+        /**
+         * 当前单元格的类型，即 c 标签的 t 属性
+         */
+        private String cellType;
+
+        /**
+         * 当前单元格的样式下标，即 c 标签的 s 属性
+         */
+        private int styleIndex;
+
+        /**
+         * 当前单元格是否为公式
+         */
+        private boolean formula;
+
+        /**
+         * 当前单元格是否有值
+         */
+        private boolean hasValue;
+
+        /**
+         * 是否正在读取值标签（v 或 内联字符串的 t）
+         */
+        private boolean inValue;
+
+        /**
+         * 当前单元格的原始值
+         */
+        private final StringBuilder value = new StringBuilder();
+
+        XlsxSheetHandler(SharedStrings sharedStrings, StylesTable stylesTable, boolean date1904, SheetReader reader) {
+            this.sharedStrings = sharedStrings;
+            this.stylesTable = stylesTable;
+            this.date1904 = date1904;
+            this.reader = reader;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("row".equals(localName)) {
+                // 缺省 r 属性时紧接上一行
+                String reference = attributes.getValue("r");
+                rowIndex = reference == null ? rowIndex + 1 : Integer.parseInt(reference) - 1;
+                columnIndex = -1;
+                reader.startRow();
+            } else if ("c".equals(localName)) {
+                String reference = attributes.getValue("r");
+                // 缺省 r 属性时单元格紧接上一个单元格
+                columnIndex = reference == null ? columnIndex + 1 : new CellReference(reference).getCol();
+                skipped = !reader.needs(columnIndex);
+                cellType = attributes.getValue("t");
+                String style = attributes.getValue("s");
+                styleIndex = style == null ? 0 : Integer.parseInt(style);
+                formula = false;
+                hasValue = false;
+                value.setLength(0);
+            } else if ("f".equals(localName)) {
+                formula = true;
+            } else if (("v".equals(localName) || ("t".equals(localName) && "inlineStr".equals(cellType))) && !skipped) {
+                inValue = true;
+                hasValue = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("v".equals(localName) || "t".equals(localName)) {
+                inValue = false;
+            } else if ("c".equals(localName)) {
+                if (!skipped) {
+                    reader.set(columnIndex, hasValue ? getValue() : null);
+                }
+            } else if ("row".equals(localName)) {
+                try {
+                    // 整行都空，就跳过
+                    reader.endRow(rowIndex);
+                } catch (IOException e) {
+                    // 由 readXlsxStreaming 还原为 IOException
+                    throw new SAXException(e);
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            }
+        }
+
+        /**
+         * 根据单元格类型和样式转换当前单元格的值
+         *
+         * @return 单元格值对应的 java对象
+         */
+        private Object getValue() {
+            String text = value.toString();
+            if ("s".equals(cellType)) {
+                text = sharedStrings.getItemAt(Integer.parseInt(text)).getString();
+                return StringUtils.isBlank(text) ? null : text;
+            } else if ("inlineStr".equals(cellType) || "str".equals(cellType)) {
+                return StringUtils.isBlank(text) ? null : text;
+            } else if ("b".equals(cellType)) {
+                return "1".equals(text);
+            } else if ("e".equals(cellType)) {
+                return FormulaError.forString(text).getCode();
+            } else if (StringUtils.isBlank(text)) {
+                return null;
+            }
+
+            double numericValue = Double.parseDouble(text);
+            if (formula) {
+                return numericValue;
+            }
+            XSSFCellStyle style = stylesTable != null && styleIndex < stylesTable.getNumCellStyles()
+                    ? stylesTable.getStyleAt(styleIndex) : null;
+            if (style == null) {
+                return ExcelUtil.getNumericValue(numericValue, "General");
+            }
+            if (DateUtil.isValidExcelDate(numericValue) && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())) {
+                return DateUtil.getJavaDate(numericValue, date1904);
+            }
+            return ExcelUtil.getNumericValue(numericValue, style.getDataFormatString());
+        }
+    }
+
+    /**
+     * 存放在临时文件中的共享字符串表：字符串按 UTF-8 顺序写入数据文件，各字符串的起始偏移量写入索引文件，
+     * 查找时通过内存映射的索引定位，再从数据文件读取，堆内只缓存最近使用的字符串
+     */
+    private static class FileSharedStrings extends DefaultHandler implements SharedStrings, Closeable {
+        /**
+         * 字符串数据文件
+         */
+        private final File dataFile;
+
+        /**
+         * 偏移量索引文件，第 i 个 long 为第 i 个字符串的起始偏移量，最后一个 long 为数据文件长度
+         */
+        private final File indexFile;
+
+        /**
+         * 解析时的数据文件输出流
+         */
+        private DataOutputStream dataOutput;
+
+        /**
+         * 解析时的索引文件输出流
+         */
+        private DataOutputStream indexOutput;
+
+        /**
+         * 解析时当前字符串的起始偏移量
+         */
+        private long offset;
+
+        /**
+         * 解析时是否在 si 标签内
+         */
+        private boolean inItem;
+
+        /**
+         * 解析时是否在注音 rPh 标签内，注音不属于单元格文本
+         */
+        private boolean inPhonetic;
+
+        /**
+         * 解析时是否在 t 标签内
+         */
+        private boolean inText;
+
+        /**
+         * 解析时当前字符串的文本
+         */
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * sst 标签的 count 属性
+         */
+        private int count;
+
+        /**
+         * sst 标签的 uniqueCount 属性
+         */
+        private int uniqueCount;
+
+        /**
+         * 字符串个数
+         */
+        private int size;
+
+        /**
+         * 数据文件通道
+         */
+        private FileChannel dataChannel;
+
+        /**
+         * 内存映射的偏移量索引
+         */
+        private LongBuffer index;
+
+        /**
+         * 最近使用的字符串
+         */
+        private final Map<Integer, String> cache = new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > SHARED_STRINGS_CACHE_SIZE;
+            }
+        };
+
+        private FileSharedStrings() throws IOException {
+            dataFile = File.createTempFile("excel-sst-", ".dat");
+            indexFile = File.createTempFile("excel-sst-", ".idx");
+        }
+
+        /**
+         * 解析共享字符串表并写入临时文件
+         *
+         * @param part 共享字符串表
+         * @return 共享字符串表
+         * @throws IOException                  IO 异常
+         * @throws SAXException                 解析异常
+         * @throws ParserConfigurationException 解析器配置异常
+         */
+        static FileSharedStrings create(PackagePart part) throws IOException, SAXException, ParserConfigurationException {
+            FileSharedStrings sharedStrings = new FileSharedStrings();
+            try {
+                sharedStrings.load(part);
+            } catch (IOException | SAXException | ParserConfigurationException | RuntimeException e) {
+                sharedStrings.close();
+                throw e;
+            }
+            return sharedStrings;
+        }
+
+        /**
+         * 解析共享字符串表写入临时文件，并映射索引文件
+         *
+         * @param part 共享字符串表
+         */
+        private void load(PackagePart part) throws IOException, SAXException, ParserConfigurationException {
+            try (InputStream inputStream = part.getInputStream();
+                 DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile)));
+                 DataOutputStream idx = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+                dataOutput = data;
+                indexOutput = idx;
+                XMLReader xmlReader = XMLHelper.newXMLReader();
+                xmlReader.setContentHandler(this);
+                xmlReader.parse(new InputSource(inputStream));
+                indexOutput.writeLong(offset);
+            } finally {
+                dataOutput = null;
+                indexOutput = null;
+            }
+            try (RandomAccessFile indexAccessFile = new RandomAccessFile(indexFile, "r")) {
+                index = indexAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, indexAccessFile.length()).asLongBuffer();
+            }
+            dataChannel = new RandomAccessFile(dataFile, "r").getChannel();
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("sst".equals(localName)) {
+                String countValue = attributes.getValue("count");
+                String uniqueCountValue = attributes.getValue("uniqueCount");
+                count = countValue == null ? 0 : Integer.parseInt(countValue);
+                uniqueCount = uniqueCountValue == null ? 0 : Integer.parseInt(uniqueCountValue);
+            } else if ("si".equals(localName)) {
+                inItem = true;
+                text.setLength(0);
+            } else if ("rPh".equals(localName)) {
+                inPhonetic = true;
+            } else if ("t".equals(localName) && inItem && !inPhonetic) {
+                inText = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("t".equals(localName)) {
+                inText = false;
+            } else if ("rPh".equals(localName)) {
+                inPhonetic = false;
+            } else if ("si".equals(localName)) {
+                inItem = false;
+                byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                try {
+                    indexOutput.writeLong(offset);
+                    dataOutput.write(bytes);
+                } catch (IOException e) {
+                    throw new SAXException(e);
+                }
+                offset += bytes.length;
+                size++;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public RichTextString getItemAt(int idx) {
+            return new XSSFRichTextString(getString(idx));
+        }
+
+        /**
+         * 根据下标获取字符串，优先从缓存中获取
+         *
+         * @param idx 下标
+         * @return 字符串
+         */
+        private String getString(int idx) {
+            if (idx < 0 || idx >= size) {
+                throw new IllegalArgumentException("共享字符串下标越界：" + idx);
+            }
+            String value = cache.get(idx);
+            if (value == null) {
+                long start = index.get(idx);
+                ByteBuffer buffer = ByteBuffer.allocate((int) (index.get(idx + 1) - start));
+                try {
+                    while (buffer.hasRemaining()) {
+                        if (dataChannel.read(buffer, start + buffer.position()) < 0) {
+                            throw new EOFException(dataFile.getPath());
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                value = new String(buffer.array(), StandardCharsets.UTF_8);
+                cache.put(idx, value);
+            }
+            return value;
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public int getUniqueCount() {
+            return uniqueCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            cache.clear();
+            index = null;
+            if (dataChannel != null) {
+                dataChannel.close();
+            }
+            ExcelUtil.deleteTempFile(dataFile);
+            ExcelUtil.deleteTempFile(indexFile);
+        }
+    }
+
+    /**
+     * 开启 workbook 缓存：按路径读取文件并按对象模型解析时，已解析的 workbook 以文件路径为键缓存，
+     * 同一文件多次读取只解析一次；读取时文件的修改时间或大小变化则立即淘汰旧的 workbook<br>
+     * 缓存按 workbook 预计占用的堆内存计算容量（估算方法与读取内存预算相同），超出后淘汰最久未使用的 workbook。
+     * 缓存期间文件保持打开，不再使用时应关闭缓存<br>
+     * 只有按对象模型解析的读取经过缓存：xls，以及小于流式解析阈值的 xlsx 的 readExcel。
+     * SAX 流式解析不保留解析结果，每次读取都重新解析，包括达到流式解析阈值的 xlsx、
+     * 所有 xlsx 的 {@link ExcelUtil#readRows(String, int, RowHandler)}（分批导入和并行校验都基于它）以及 csv。
+     * 因此缓存只对小文件的重复读取有效，大文件的预览、校验和导入各自解析一次
+     *
+     * @param maxBytes 缓存的 workbook 预计占用的堆内存上限（字节）
+     */
+    public static synchronized void enableWorkbookCache(long maxBytes) {
+        disableWorkbookCache();
+        workbookCache = new WorkbookCache(maxBytes);
+    }
+
+    /**
+     * 关闭 workbook 缓存，并关闭所有缓存的 workbook
+     */
+    public static synchronized void disableWorkbookCache() {
+        WorkbookCache cache = workbookCache;
+        workbookCache = null;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return workbook 缓存的统计信息，未开启缓存时返回 null
+     */
+    public static CacheStats getWorkbookCacheStats() {
+        WorkbookCache cache = workbookCache;
+        return cache == null ? null : cache.getStats();
+    }
+
+    /**
+     * workbook 缓存的统计信息
+     */
+    public static class CacheStats {
+        /**
+         * 命中次数
+         */
+        private final long hitCount;
+
+        /**
+         * 未命中次数
+         */
+        private final long missCount;
+
+        /**
+         * 淘汰次数
+         */
+        private final long evictionCount;
+
+        /**
+         * 缓存的 workbook 个数
+         */
+        private final int size;
+
+        /**
+         * 缓存的 workbook 预计占用的堆内存（字节）
+         */
+        private final long bytes;
+
+        CacheStats(long hitCount, long missCount, long evictionCount, int size, long bytes) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return 命中次数
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * @return 未命中次数
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * @return 淘汰次数
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * @return 缓存的 workbook 个数
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return 缓存的 workbook 预计占用的堆内存（字节）
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+                    + ", size=" + size + ", bytes=" + bytes + "}";
+        }
+    }
+
+    /**
+     * 按预计占用的堆内存限制容量的 workbook LRU 缓存，同一 workbook 的读取串行执行；只缓存按对象模型解析的 workbook
+     */
+    private static class WorkbookCache {
+        /**
+         * 缓存的 workbook 预计占用的堆内存上限（字节）
+         */
+        private final long maxBytes;
+
+        /**
+         * 按访问顺序排列的缓存项，键为文件的规范路径
+         */
+        private final LinkedHashMap<String, CachedWorkbook> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * 缓存的 workbook 预计占用的堆内存（字节）
+         */
+        private long bytes;
+
+        /**
+         * 命中次数
+         */
+        private long hitCount;
+
+        /**
+         * 未命中次数
+         */
+        private long missCount;
+
+        /**
+         * 淘汰次数
+         */
+        private long evictionCount;
+
+        WorkbookCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * 使用缓存的 workbook 读取数据，未命中则打开文件并放入缓存
+         *
+         * @param file     文件
+         * @param fileType 识别出的文件类型
+         * @param reader   读取数据的方法
+         * @param <R>      数据类型
+         * @return 读取的数据
+         * @throws IOException IO 异常
+         */
+        <R> R read(File file, String fileType, WorkbookReader<R> reader) throws IOException {
+            if (!file.isFile()) {
+                throw new FileNotFoundException(file.getPath());
+            }
+            String key = file.getCanonicalPath();
+            long lastModified = file.lastModified();
+            long length = file.length();
+            CachedWorkbook cached;
+            CachedWorkbook stale = null;
+            synchronized (this) {
+                cached = entries.get(key);
+                if (cached != null && !cached.matches(lastModified, length)) {
+                    // 文件已被修改，立即淘汰，释放 workbook 和文件句柄
+                    entries.remove(key);
+                    bytes -= cached.bytes;
+                    evictionCount++;
+                    stale = cached;
+                    cached = null;
+                }
+                if (cached != null) {
+                    hitCount++;
+                } else {
+                    missCount++;
+                }
+            }
+            if (stale != null) {
+                stale.close();
+            }
+            if (cached == null) {
+                long estimatedBytes = estimateWorkbookMemory(file, fileType);
+                Workbook workbook = ReadExtension.DEFAULT.openWorkbook(file, fileType);
+                if (estimatedBytes > maxBytes) {
+                    try (Workbook uncached = workbook) {
+                        return reader.read(uncached);
+                    }
+                }
+                cached = put(key, new CachedWorkbook(workbook, lastModified, length, estimatedBytes));
+            }
+            synchronized (cached) {
+                if (!cached.closed) {
+                    return reader.read(cached.workbook);
+                }
+            }
+            // 读取前已被淘汰，直接读取文件
+            try (Workbook workbook = ReadExtension.DEFAULT.openWorkbook(file, fileType)) {
+                return reader.read(workbook);
+            }
+        }
+
+        /**
+         * 放入缓存，并淘汰最久未使用的 workbook 直到预计占用的堆内存不超过上限
+         *
+         * @param key    缓存键
+         * @param cached 缓存项
+         * @return 实际缓存的缓存项（并发未命中同一版本的文件时使用先放入的）
+         */
+        private CachedWorkbook put(String key, CachedWorkbook cached) {
+            List<CachedWorkbook> evicted = new ArrayList<>();
+            CachedWorkbook result;
+            synchronized (this) {
+                CachedWorkbook existing = entries.get(key);
+                if (existing != null && existing.matches(cached.lastModified, cached.length)) {
+                    evicted.add(cached);
+                    result = existing;
+                } else {
+                    if (existing != null) {
+                        // 并发读取时文件被修改，保留新版本
+                        entries.remove(key);
+                        bytes -= existing.bytes;
+                        evictionCount++;
+                        evicted.add(existing);
+                    }
+                    entries.put(key, cached);
+                    bytes += cached.bytes;
+                    Iterator<CachedWorkbook> iterator = entries.values().iterator();
+                    while (bytes > maxBytes && iterator.hasNext()) {
+                        CachedWorkbook eldest = iterator.next();
+                        if (eldest == cached) {
+                            continue;
+                        }
+                        iterator.remove();
+                        bytes -= eldest.bytes;
+                        evictionCount++;
+                        evicted.add(eldest);
+                    }
+                    result = cached;
+                }
+            }
+            for (CachedWorkbook workbook : evicted) {
+                workbook.close();
+            }
+            return result;
+        }
+
+        /**
+         * 清空缓存，关闭所有缓存的 workbook
+         */
+        void clear() {
+            List<CachedWorkbook> evicted;
+            synchronized (this) {
+                evicted = new ArrayList<>(entries.values());
+                entries.clear();
+                bytes = 0;
+            }
+            for (CachedWorkbook workbook : evicted) {
+                workbook.close();
+            }
+        }
+
+        /**
+         * @return 统计信息
+         */
+        synchronized CacheStats getStats() {
+            return new CacheStats(hitCount, missCount, evictionCount, entries.size(), bytes);
+        }
+    }
+
+    /**
+     * 缓存的 workbook，读取和关闭都需要持有该对象的锁
+     */
+    private static class CachedWorkbook {
+        /**
+         * 工作簿
+         */
+        private final Workbook workbook;
+
+        /**
+         * 打开时文件的修改时间
+         */
+        private final long lastModified;
+
+        /**
+         * 打开时文件的大小（字节）
+         */
+        private final long length;
+
+        /**
+         * 预计占用的堆内存（字节）
+         */
+        private final long bytes;
+
+        /**
+         * 是否已关闭
+         */
+        private boolean closed;
+
+        CachedWorkbook(Workbook workbook, long lastModified, long length, long bytes) {
+            this.workbook = workbook;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @param lastModified 文件当前的修改时间
+         * @param length       文件当前的大小
+         * @return 缓存的 workbook 是否还对应文件的当前内容
+         */
+        boolean matches(long lastModified, long length) {
+            return this.lastModified == lastModified && this.length == length;
+        }
+
+        /**
+         * 关闭 workbook，等待正在进行的读取完成
+         */
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                LOGGER.error("#close cached workbook error.", e);
+            }
+        }
+    }
+
+    /**
+     * 按对象模型读取前预留预计占用的堆内存，读取完成后关闭返回的预留以归还内存<br>
+     * 超出读取内存预算则抛出异常，预算暂时不足则等待其它读取归还
+     *
+     * @param file     文件
+     * @param fileType 识别出的文件类型
+     * @return 预留的内存，未开启读取内存预算时不预留
+     * @throws IOException 预计占用的堆内存超出预算、xlsx 压缩比过高，或等待时被中断
+     */
+    private static MemoryReservation reserveWorkbookMemory(File file, String fileType) throws IOException {
+        MemoryBudget budget = readMemoryBudget;
+        if (budget == null) {
+            return MemoryReservation.NONE;
+        }
+        long estimatedBytes = estimateWorkbookMemory(file, fileType);
+        checkBudget(budget, file, estimatedBytes);
+        return budget.reserve(estimatedBytes);
+    }
+
+    /**
+     * 按对象模型读取 xlsx 前尝试预留预计占用的堆内存，超出读取内存预算或暂时预留不到时返回 null，改用 SAX 流式解析
+     *
+     * @param file      文件
+     * @param streaming 是否已确定使用 SAX 流式解析（仍然检查压缩比）
+     * @return 预留的内存，未开启读取内存预算时不预留；为 null 表示应当使用 SAX 流式解析
+     * @throws IOException IO 异常，或者 xlsx 压缩比过高
+     */
+    private static MemoryReservation tryReserveXlsxMemory(File file, boolean streaming) throws IOException {
+        MemoryBudget budget = readMemoryBudget;
+        if (budget == null) {
+            return streaming ? null : MemoryReservation.NONE;
+        }
+        long estimatedBytes = inspectXlsx(file);
+        if (streaming) {
+            return null;
+        }
+        MemoryReservation reservation = estimatedBytes > budget.maxBytes ? null : budget.tryReserve(estimatedBytes);
+        if (reservation == null) {
+            LOGGER.info("#readRows fall back to streaming, estimated " + estimatedBytes + " bytes for " + file.getName());
+        }
+        return reservation;
+    }
+
+    /**
+     * 开启读取内存预算时，检查按对象模型读取预计占用的堆内存是否超出预算，不预留内存
+     *
+     * @param file     文件
+     * @param fileType 文件类型
+     * @throws IOException IO 异常，或者超出预算、xlsx 压缩比过高
+     */
+    private static void checkWorkbookMemory(File file, String fileType) throws IOException {
+        MemoryBudget budget = readMemoryBudget;
+        if (budget != null) {
+            checkBudget(budget, file, estimateWorkbookMemory(file, fileType));
+        }
+    }
+
+    /**
+     * 检查预计占用的堆内存是否超出预算，不预留内存
+     *
+     * @param budget         读取内存预算
+     * @param file           文件，用于错误信息
+     * @param estimatedBytes 预计占用的堆内存（字节）
+     * @throws ReadLimitExceededException 超出预算
+     */
+    private static void checkBudget(MemoryBudget budget, File file, long estimatedBytes) throws ReadLimitExceededException {
+        if (estimatedBytes > budget.maxBytes) {
+            throw new ReadLimitExceededException("文件 " + file.getName() + " 预计占用内存 " + estimatedBytes
+                    + " 字节，超出读取内存预算 " + budget.maxBytes + " 字节");
+        }
+    }
+
+    /**
+     * 估算按对象模型读取时占用的堆内存
+     *
+     * @param file     文件
+     * @param fileType 文件类型
+     * @return 预计占用的堆内存（字节），不支持的文件类型返回 0
+     * @throws IOException IO 异常，或者 xlsx 压缩比过高
+     */
+    private static long estimateWorkbookMemory(File file, String fileType) throws IOException {
+        if (XLS.equals(fileType)) {
+            return file.length() * HSSF_BYTES_PER_FILE_BYTE;
+        }
+        if (XLSX.equals(fileType)) {
+            return inspectXlsx(file);
+        }
+        return 0;
+    }
+
+    /**
+     * 不解压数据，只根据 xlsx 压缩包目录中各条目解压后的大小和各 worksheet 的 dimension 估算按对象模型读取时占用的堆内存，
+     * 同时检查各条目的压缩比，防止 zip 炸弹<br>
+     * 压缩包目录中的大小可能被篡改，实际解压时 POI 仍会按 {@link org.apache.poi.openxml4j.util.ZipSecureFile} 的设置检查
+     *
+     * @param file xlsx 文件
+     * @return 预计占用的堆内存（字节）
+     * @throws IOException IO 异常，或者压缩比过高
+     */
+    private static long inspectXlsx(File file) throws IOException {
+        long xmlBytes = 0;
+        long otherBytes = 0;
+        long cells = 0;
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                long size = Math.max(entry.getSize(), 0);
+                long compressedSize = entry.getCompressedSize();
+                if (size >= COMPRESSION_RATIO_MIN_ENTRY_SIZE && compressedSize > 0 && size / compressedSize > maxCompressionRatio) {
+                    throw new ReadLimitExceededException("文件 " + file.getName() + " 的 " + entry.getName() + " 压缩比为 "
+                            + size / compressedSize + "，超过上限 " + maxCompressionRatio + "，疑似 zip 炸弹");
+                }
+                String name = entry.getName();
+                if (name.endsWith(".xml")) {
+                    xmlBytes += size;
+                    if (name.startsWith("xl/worksheets/")) {
+                        cells += getDimensionCells(zipFile, entry);
+                    }
+                } else {
+                    otherBytes += size;
+                }
+            }
+        }
+        return Math.max(xmlBytes * XSSF_BYTES_PER_XML_BYTE, cells * XSSF_BYTES_PER_CELL) + otherBytes;
+    }
+
+    /**
+     * 读取 worksheet 开头的 dimension，计算 sheet 的单元格数
+     *
+     * @param zipFile xlsx 压缩包
+     * @param entry   worksheet 条目
+     * @return 单元格数，没有 dimension 时返回 0
+     * @throws IOException IO 异常
+     */
+    private static long getDimensionCells(ZipFile zipFile, ZipArchiveEntry entry) throws IOException {
+        byte[] header = new byte[DIMENSION_PEEK_SIZE];
+        int length = 0;
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+            int n;
+            while (length < DIMENSION_PEEK_SIZE && (n = inputStream.read(header, length, DIMENSION_PEEK_SIZE - length)) != -1) {
+                length += n;
+            }
+        }
+        Matcher matcher = DIMENSION_PATTERN.matcher(new String(header, 0, length, StandardCharsets.UTF_8));
+        if (!matcher.find()) {
+            return 0;
+        }
+        CellReference first = new CellReference(matcher.group(1));
+        CellReference last = matcher.group(2) == null ? first : new CellReference(matcher.group(2));
+        return (Math.abs(last.getRow() - first.getRow()) + 1L) * (Math.abs(last.getCol() - first.getCol()) + 1L);
+    }
+
+    /**
+     * 把输入流复制到临时文件
+     *
+     * @param inputStream 输入流
+     * @param fileType    文件类型，用作临时文件的后缀
+     * @return 临时文件，使用完需要删除
+     * @throws IOException IO 异常
+     */
+    private static File copyToTempFile(InputStream inputStream, String fileType) throws IOException {
+        File tempFile = File.createTempFile("excel-read-", "." + fileType);
+        try {
+            Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            ExcelUtil.deleteTempFile(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * 读取的内存预算，以 KB 为单位的许可在并发的读取之间共享
+     */
+    private static class MemoryBudget {
+        /**
+         * 预算（字节）
+         */
+        private final long maxBytes;
+
+        /**
+         * 剩余的预算（KB）
+         */
+        private final Semaphore permits;
+
+        MemoryBudget(long maxBytes) {
+            this.maxBytes = maxBytes;
+            // 公平模式：大文件等待期间，后来的小文件不能一直插队
+            this.permits = new Semaphore(toPermits(maxBytes), true);
+        }
+
+        private static int toPermits(long bytes) {
+            return (int) Math.min(Integer.MAX_VALUE, (bytes + 1023) / 1024);
+        }
+
+        /**
+         * 预留内存，预算不足时等待
+         *
+         * @param bytes 字节数，不超过预算
+         * @return 预留的内存
+         * @throws InterruptedIOException 等待时被中断
+         */
+        MemoryReservation reserve(long bytes) throws InterruptedIOException {
+            int n = toPermits(bytes);
+            try {
+                permits.acquire(n);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待读取内存预算时被中断");
+            }
+            return new MemoryReservation(permits, n);
+        }
+
+        /**
+         * 尝试预留内存，不等待
+         *
+         * @param bytes 字节数
+         * @return 预留的内存，预算不足时返回 null
+         */
+        MemoryReservation tryReserve(long bytes) {
+            int n = toPermits(bytes);
+            return permits.tryAcquire(n) ? new MemoryReservation(permits, n) : null;
+        }
+
+        /**
+         * @return 剩余的预算（字节）
+         */
+        long getAvailableBytes() {
+            return permits.availablePermits() * 1024L;
+        }
+    }
+
+    /**
+     * 预留的内存，关闭时归还，重复关闭只归还一次
+     */
+    private static class MemoryReservation implements AutoCloseable {
+        /**
+         * 不预留内存
+         */
+        static final MemoryReservation NONE = new MemoryReservation(null, 0);
+
+        /**
+         * 预留自的许可，设置新的预算后仍归还给原来的预算
+         */
+        private final Semaphore permits;
+
+        /**
+         * 预留的许可数（KB）
+         */
+        private final int n;
+
+        /**
+         * 是否已归还，保证重复关闭只归还一次
+         */
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        MemoryReservation(Semaphore permits, int n) {
+            this.permits = permits;
+            this.n = n;
+        }
+
+        @Override
+        public void close() {
+            if (permits != null && closed.compareAndSet(false, true)) {
+                permits.release(n);
+            }
+        }
+    }
+
+    /**
+     * 读取的文件超出限制：预计占用的内存超出读取内存预算，或者 xlsx 压缩比过高
+     */
+    public static class ReadLimitExceededException extends IOException {
+        public ReadLimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * @return 流式解析 xlsx 时，共享字符串表存放到临时文件的大小阈值（字节）
+     */
+    public static long getSharedStringsSpillThreshold() {
+        return sharedStringsSpillThreshold;
+    }
+
+    /**
+     * @param sharedStringsSpillThreshold 流式解析 xlsx 时，共享字符串表存放到临时文件的大小阈值（字节），0 表示总是存放到临时文件
+     */
+    public static void setSharedStringsSpillThreshold(long sharedStringsSpillThreshold) {
+        ExcelStreamingUtil.sharedStringsSpillThreshold = sharedStringsSpillThreshold;
+    }
+
+    /**
+     * @return 读取的内存预算（字节），0 表示不限制
+     */
+    public static long getReadMemoryBudget() {
+        MemoryBudget budget = readMemoryBudget;
+        return budget == null ? 0 : budget.maxBytes;
+    }
+
+    /**
+     * 设置读取的内存预算，在所有并发的读取之间共享，如设为最大堆内存的一半<br>
+     * 开启后，按对象模型读取（xls，以及未达到流式解析阈值的 xlsx）前根据文件估算占用的堆内存并从预算中预留，读取完成后归还：
+     * <ul>
+     * <li>xlsx 根据压缩包目录中解压后的大小和 worksheet 的 dimension 估算，不需要解压；超出预算或暂时预留不到时改用 SAX 流式解析</li>
+     * <li>xls 无法流式解析，超出预算则抛出 {@link ReadLimitExceededException}，暂时预留不到则等待</li>
+     * <li>xlsx 条目的压缩比超过 {@link #getMaxCompressionRatio()} 时抛出 {@link ReadLimitExceededException}</li>
+     * <li>输入流先复制到临时文件再读取</li>
+     * </ul>
+     * 返回给调用方的 workbook（如 {@link ExcelUtil#getWorkbook(File)}）只检查是否超出预算，不预留；缓存的 workbook 由缓存自身限制容量
+     *
+     * @param maxBytes 预算（字节），0 表示不限制
+     */
+    public static void setReadMemoryBudget(long maxBytes) {
+        readMemoryBudget = maxBytes > 0 ? new MemoryBudget(maxBytes) : null;
+    }
+
+    /**
+     * @return 读取内存预算的剩余字节数，未开启时返回 0
+     */
+    public static long getAvailableReadMemory() {
+        MemoryBudget budget = readMemoryBudget;
+        return budget == null ? 0 : budget.getAvailableBytes();
+    }
+
+    /**
+     * @return 开启读取内存预算时，xlsx 条目允许的最大压缩比
+     */
+    public static int getMaxCompressionRatio() {
+        return maxCompressionRatio;
+    }
+
+    /**
+     * @param maxCompressionRatio 开启读取内存预算时，xlsx 条目允许的最大压缩比（解压后大小 / 压缩后大小），默认 100，不能小于 1
+     */
+    public static void setMaxCompressionRatio(int maxCompressionRatio) {
+        if (maxCompressionRatio < 1) {
+            throw new IllegalArgumentException("最大压缩比不能小于 1");
+        }
+        ExcelStreamingUtil.maxCompressionRatio = maxCompressionRatio;
+    }
+}
@@ -0,0 +1,244 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import com.github.idealismxxm.excelutils.ExcelUtil.ExcelSheet;
+import com.github.idealismxxm.excelutils.ExcelUtil.ExportContext;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 追加导出的测试：xlsx 在 sheetData 末尾拼接新增的行，并更新 dimension
+ *
+ * @author idealism
+ */
+public class ExcelExportUtilAppendTest {
+
+    private static final String SHEET_PATH = "xl/worksheets/sheet1.xml";
+
+    private static final String[] HEADERS = {"编号", "名称", "数量"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendToExistingXlsxSheet() throws IOException {
+        File file = new File(folder.getRoot(), "append.xlsx");
+        ExcelExportUtil.appendExcel(sheets("明细", rows(0, 3)), file.getPath());
+
+        ExcelExportUtil.appendExcel(sheets("明细", rows(3, 2)), file.getPath());
+
+        List<List<Object>> data = ExcelUtil.readExcel(file.getPath(), "明细");
+        assertEquals(1 + 5, data.size());
+        assertEquals(Arrays.asList(HEADERS), data.get(0));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("N" + i, data.get(i + 1).get(1));
+        }
+        assertEquals("A1:C6", dimension(readEntry(file, SHEET_PATH)));
+    }
+
+    @Test
+    public void appendWiderRowsWidensDimension() throws IOException {
+        File file = new File(folder.getRoot(), "append.xlsx");
+        ExcelExportUtil.appendExcel(sheets("明细", rows(0, 3)), file.getPath());
+        List<List<Object>> wider = new ArrayList<>();
+        wider.add(Arrays.asList("9", "N9", "1", "备注"));
+
+        ExcelExportUtil.appendExcel(sheets("明细", wider), file.getPath());
+
+        assertEquals("A1:D5", dimension(readEntry(file, SHEET_PATH)));
+    }
+
+    @Test
+    public void appendNewSheetToXlsx() throws IOException {
+        File file = new File(folder.getRoot(), "append.xlsx");
+        ExcelExportUtil.appendExcel(sheets("明细", rows(0, 3)), file.getPath());
+
+        ExcelExportUtil.appendExcel(sheets("汇总", rows(0, 2)), file.getPath());
+
+        assertEquals(4, ExcelUtil.readExcel(file.getPath(), "明细").size());
+        List<List<Object>> added = ExcelUtil.readExcel(file.getPath(), "汇总");
+        assertEquals(3, added.size());
+        assertEquals(Arrays.asList(HEADERS), added.get(0));
+    }
+
+    @Test
+    public void appendNewSheetsRollOverAtMaxRowsPerSheet() throws IOException {
+        File file = new File(folder.getRoot(), "append.xlsx");
+        List<ExcelSheet<List<Object>>> existing = new ArrayList<>(sheets("明细", rows(0, 3)));
+        existing.addAll(sheets("新增 (2)", rows(0, 1)));
+        ExcelExportUtil.appendExcel(existing, file.getPath());
+        List<ExcelSheet<List<Object>>> added = new ArrayList<>(sheets("新增", rows(0, 25)));
+        added.addAll(sheets("其它", rows(100, 4)));
+
+        ExcelExportUtil.appendExcelWithContext(added, file.getPath(), ExportContext.DEFAULT.withMaxRowsPerSheet(10));
+
+        try (Workbook workbook = ExcelUtil.openForRead(file)) {
+            // 换出的 sheet 不与已有的 "新增 (2)" 重名
+            assertEquals(Arrays.asList("明细", "新增 (2)", "新增", "新增 (3)", "新增 (4)", "其它"), sheetNames(workbook));
+            int next = 0;
+            for (String sheetName : Arrays.asList("新增", "新增 (3)", "新增 (4)")) {
+                List<List<Object>> data = ExcelUtil.getSheetData(workbook, workbook.getSheet(sheetName));
+                assertEquals(Arrays.asList(HEADERS), data.get(0));
+                for (List<Object> row : data.subList(1, data.size())) {
+                    assertEquals("N" + next++, row.get(1));
+                }
+            }
+            assertEquals(25, next);
+            List<List<Object>> other = ExcelUtil.getSheetData(workbook, workbook.getSheet("其它"));
+            assertEquals(1 + 4, other.size());
+            assertEquals("N100", other.get(1).get(1));
+            assertEquals(2, ExcelUtil.getSheetData(workbook, workbook.getSheet("新增 (2)")).size());
+        }
+    }
+
+    @Test
+    public void appendToPrefixedSheetXml() throws IOException {
+        File file = new File(folder.getRoot(), "append.xlsx");
+        ExcelExportUtil.appendExcel(sheets("明细", rows(0, 3)), file.getPath());
+        File prefixed = new File(folder.getRoot(), "prefixed.xlsx");
+        rewriteEntry(file, prefixed, SHEET_PATH, ExcelExportUtilAppendTest::addPrefix);
+
+        ExcelExportUtil.appendExcel(sheets("明细", rows(3, 2)), prefixed.getPath());
+
+        String sheetXml = readEntry(prefixed, SHEET_PATH);
+        assertFalse(sheetXml.contains("<row"));
+        assertTrue(sheetXml.contains("</x:sheetData>"));
+        assertEquals("A1:C6", dimension(sheetXml));
+        List<List<Object>> data = ExcelUtil.readExcel(prefixed.getPath(), "明细");
+        assertEquals(1 + 5, data.size());
+        assertEquals("N4", data.get(5).get(1));
+    }
+
+    @Test
+    public void appendToXls() throws IOException {
+        File file = new File(folder.getRoot(), "append.xls");
+        ExcelExportUtil.appendExcel(sheets("明细", rows(0, 3)), file.getPath());
+
+        ExcelExportUtil.appendExcel(sheets("明细", rows(3, 2)), file.getPath());
+
+        List<List<Object>> data = ExcelUtil.readExcel(file.getPath(), "明细");
+        assertEquals(1 + 5, data.size());
+        assertEquals("N4", data.get(5).get(1));
+    }
+
+    @Test
+    public void duplicateSheetNamesAreRejected() throws IOException {
+        for (String fileName : Arrays.asList("append.xlsx", "append.xls")) {
+            File file = new File(folder.getRoot(), fileName);
+            ExcelExportUtil.appendExcel(sheets("明细", rows(0, 3)), file.getPath());
+            byte[] before = Files.readAllBytes(file.toPath());
+            // 已有的 sheet 和新 sheet 都不能重名，表名不区分大小写
+            for (String sheetName : Arrays.asList("明细", "Dup")) {
+                List<ExcelSheet<List<Object>>> duplicated = new ArrayList<>(sheets(sheetName, rows(3, 2)));
+                duplicated.addAll(sheets(sheetName.toLowerCase(), rows(5, 2)));
+                try {
+                    ExcelExportUtil.appendExcel(duplicated, file.getPath());
+                    fail("重复的表名应当被拒绝");
+                } catch (IllegalArgumentException expected) {
+                    assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void appendFailureIsReported() throws IOException {
+        File file = folder.newFile("broken.xlsx");
+        Files.write(file.toPath(), "not a workbook".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            ExcelExportUtil.appendExcel(sheets("明细", rows(0, 1)), file.getPath());
+            fail("追加到无法识别的文件应当抛出异常");
+        } catch (IOException expected) {
+            // 原文件不变
+            assertEquals("not a workbook", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<ExcelSheet<List<Object>>> sheets(String sheetName, List<List<Object>> dataset) {
+        ExcelSheet<List<Object>> sheet = new ExcelSheet<>();
+        sheet.setSheetName(sheetName);
+        sheet.setHeaders(HEADERS);
+        sheet.setDataset(dataset);
+        return Collections.singletonList(sheet);
+    }
+
+    private static List<List<Object>> rows(int from, int count) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            rows.add(Arrays.asList(String.valueOf(i), "N" + i, String.valueOf(i * 10)));
+        }
+        return rows;
+    }
+
+    private static List<String> sheetNames(Workbook workbook) {
+        List<String> names = new ArrayList<>();
+        for (Sheet sheet : workbook) {
+            names.add(sheet.getSheetName());
+        }
+        return names;
+    }
+
+    private static String dimension(String sheetXml) {
+        Matcher matcher = Pattern.compile("<(?:\\w+:)?dimension ref=\"([^\"]+)\"").matcher(sheetXml);
+        assertTrue(matcher.find());
+        return matcher.group(1);
+    }
+
+    /**
+     * 把 worksheet 改写为带 x 前缀的 SpreadsheetML，如 &lt;x:sheetData&gt;
+     */
+    private static String addPrefix(String sheetXml) {
+        return sheetXml
+                .replace("xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"",
+                        "xmlns:x=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"")
+                .replaceAll("<(/?)(?=[a-zA-Z])(?!\\w+:)", "<$1x:");
+    }
+
+    private static String readEntry(File file, String name) throws IOException {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            return readEntry(zipFile, zipFile.getEntry(name));
+        }
+    }
+
+    private static String readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void rewriteEntry(File source, File target, String name, java.util.function.UnaryOperator<String> rewriter)
+            throws IOException {
+        try (ZipFile zipFile = new ZipFile(source); ZipOutputStream out = new ZipOutputStream(new FileOutputStream(target))) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String content = readEntry(zipFile, entry);
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                out.write((name.equals(entry.getName()) ? rewriter.apply(content) : content).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+}
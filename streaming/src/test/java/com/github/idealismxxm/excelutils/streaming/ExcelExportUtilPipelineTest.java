@@ -0,0 +1,137 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流水线导出的测试：行顺序、javabean 的单元格类型和失败传播
+ *
+ * @author idealism
+ */
+public class ExcelExportUtilPipelineTest {
+
+    private static final String[] HEADERS = {"编号", "名称"};
+
+    @Test
+    public void pipelinedWriteKeepsRowOrder() throws IOException {
+        int rowCount = 20000;
+        try (Workbook workbook = new HSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("明细");
+
+            ExcelExportUtil.write2SheetPipelined(sheet, HEADERS, rows(rowCount), null, 4);
+
+            assertEquals(rowCount, sheet.getLastRowNum());
+            assertEquals("编号", sheet.getRow(0).getCell(0).getStringCellValue());
+            for (int i = 0; i < rowCount; i++) {
+                Row row = sheet.getRow(i + 1);
+                assertEquals(String.valueOf(i), row.getCell(0).getStringCellValue());
+                assertEquals("N" + i, row.getCell(1).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    public void pipelinedWriteKeepsBeanCellTypes() throws IOException {
+        List<Item> items = Arrays.asList(new Item(1, 2.5, true), new Item(2, null, false));
+        try (Workbook workbook = new HSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("明细");
+
+            ExcelExportUtil.write2SheetPipelined(sheet, new String[]{"编号", "价格", "有效"}, items, null, 2);
+
+            Row first = sheet.getRow(1);
+            assertEquals(CellType.NUMERIC, first.getCell(0).getCellType());
+            assertEquals(2.5, first.getCell(1).getNumericCellValue(), 0);
+            assertEquals(CellType.BOOLEAN, first.getCell(2).getCellType());
+            Row second = sheet.getRow(2);
+            assertTrue(second.getCell(1) == null || second.getCell(1).getCellType() == CellType.BLANK);
+        }
+    }
+
+    @Test
+    public void pipelinedWritePropagatesReadFailure() {
+        Collection<List<Object>> failing = new AbstractCollection<List<Object>>() {
+            @Override
+            public Iterator<List<Object>> iterator() {
+                Iterator<List<Object>> rows = rows(10000).iterator();
+                return new Iterator<List<Object>>() {
+                    private int count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return rows.hasNext();
+                    }
+
+                    @Override
+                    public List<Object> next() {
+                        if (++count > 5000) {
+                            throw new IllegalStateException("分页查询失败");
+                        }
+                        return rows.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return 10000;
+            }
+        };
+        try (Workbook workbook = new HSSFWorkbook()) {
+            ExcelExportUtil.write2SheetPipelined(workbook.createSheet("明细"), HEADERS, failing, null, 2);
+            fail("读取数据失败应当抛出异常");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("分页查询失败", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pipelinedWriteRejectsZeroWorkers() throws IOException {
+        try (Workbook workbook = new HSSFWorkbook()) {
+            ExcelExportUtil.write2SheetPipelined(workbook.createSheet("明细"), HEADERS, rows(1), null, 0);
+        }
+    }
+
+    private static List<List<Object>> rows(int count) {
+        List<List<Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(Arrays.asList(String.valueOf(i), "N" + i));
+        }
+        return rows;
+    }
+
+    public static class Item {
+        private final Integer id;
+
+        private final Double price;
+
+        private final Boolean valid;
+
+        Item(Integer id, Double price, Boolean valid) {
+            this.id = id;
+            this.price = price;
+            this.valid = valid;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Double getPrice() {
+            return price;
+        }
+
+        public Boolean getValid() {
+            return valid;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import com.github.idealismxxm.excelutils.streaming.ExcelImportUtil.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分批导入和并行校验的测试
+ *
+ * @author idealism
+ */
+public class ExcelImportUtilTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validationReportsErrorsInRowOrder() throws IOException {
+        List<List<Object>> data = new ArrayList<>();
+        data.add(Arrays.asList("姓名", "手机号", "年龄"));
+        for (int i = 0; i < 5000; i++) {
+            boolean invalid = i % 1000 == 7;
+            data.add(Arrays.asList("张三" + i, invalid ? "123" : "13800000000", invalid ? 200 : 30));
+        }
+        RowValidator validator = new RowValidator()
+                .required(0)
+                .pattern(1, "1[3-9]\\d{9}")
+                .range(2, 0, 150);
+
+        ValidationReport report = ExcelImportUtil.validateSheetData(data, 1, validator, 4);
+
+        assertFalse(report.isValid());
+        assertEquals(5000, report.getRowCount());
+        assertEquals(10, report.getErrorCount());
+        List<CellError> errors = report.getErrors();
+        assertEquals(10, errors.size());
+        for (int i = 0; i < errors.size(); i++) {
+            CellError error = errors.get(i);
+            assertEquals(1 + (i / 2) * 1000 + 7, error.getRowIndex());
+            assertEquals(1 + i % 2, error.getColumnIndex());
+        }
+        assertEquals("格式不正确", errors.get(0).getMessage());
+        assertEquals("123", errors.get(0).getValue());
+    }
+
+    @Test
+    public void validationKeepsDistinctErrorsOfSameCell() throws IOException {
+        List<List<Object>> data = Collections.singletonList(Arrays.asList("a", "b"));
+        RowValidator validator = new RowValidator()
+                .rule(row -> "重复")
+                .rule(row -> "重复");
+
+        ValidationReport report = ExcelImportUtil.validateSheetData(data, 0, validator, 1);
+
+        assertEquals(2, report.getErrorCount());
+        assertEquals(2, report.getErrors().size());
+    }
+
+    @Test
+    public void validationKeepsFirstMaxErrors() throws IOException {
+        List<List<Object>> data = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            data.add(Arrays.asList((Object) null));
+        }
+        RowValidator validator = new RowValidator().required(0).maxErrors(5);
+
+        ValidationReport report = ExcelImportUtil.validateSheetData(data, 0, validator, 4);
+
+        assertEquals(10000, report.getErrorCount());
+        assertEquals(5, report.getErrors().size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, report.getErrors().get(i).getRowIndex());
+        }
+        assertFalse(report.isAborted());
+    }
+
+    @Test
+    public void validationFailsFast() throws IOException {
+        File file = folder.newFile("invalid.xlsx");
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            rows.add(Arrays.asList("张三" + i, "不是数字"));
+        }
+        ExcelUtil.exportExcel(new String[]{"姓名", "年龄"}, rows, file.getPath());
+        RowValidator validator = new RowValidator().range(1, 0, 150).maxErrors(10).failFast(true);
+
+        ValidationReport report = ExcelImportUtil.validateExcel(file.getPath(), 0, 1, validator, 2);
+
+        assertTrue(report.isAborted());
+        assertTrue(report.getRowCount() < 50000);
+        assertEquals(10, report.getErrors().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validatorRejectsNegativeColumn() {
+        new RowValidator().required(-1);
+    }
+
+    @Test
+    public void importReportsFailedBatches() throws IOException {
+        File file = folder.newFile("import.xlsx");
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 1050; i++) {
+            rows.add(Arrays.asList(String.valueOf(i), "N" + i));
+        }
+        ExcelUtil.exportExcel(new String[]{"编号", "名称"}, rows, file.getPath());
+        Queue<Object> imported = new ConcurrentLinkedQueue<>();
+
+        ImportResult result = ExcelImportUtil.importExcel(file.getPath(), 0, 1, 100, 3, batch -> {
+            if ("500".equals(batch.get(0).get(0))) {
+                throw new IllegalStateException("写入失败");
+            }
+            for (List<Object> row : batch) {
+                imported.add(row.get(0));
+            }
+        });
+
+        assertEquals(11, result.getBatches().size());
+        assertEquals(1, result.getFailedBatches().size());
+        BatchResult failed = result.getFailedBatches().get(0);
+        assertEquals(5, failed.getIndex());
+        assertEquals(500, failed.getFirstRow());
+        assertTrue(failed.getFailure() instanceof IllegalStateException);
+        assertEquals(950, result.getImportedRows());
+        assertEquals(100, result.getFailedRows());
+        assertEquals(950, imported.size());
+    }
+}
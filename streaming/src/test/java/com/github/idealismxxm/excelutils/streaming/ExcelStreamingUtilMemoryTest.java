@@ -0,0 +1,168 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import com.github.idealismxxm.excelutils.streaming.ExcelStreamingUtil.CacheStats;
+import com.github.idealismxxm.excelutils.streaming.ExcelStreamingUtil.ReadLimitExceededException;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 读取内存的测试：workbook 缓存的容量和失效，读取内存预算超出时改用流式解析或拒绝读取
+ *
+ * @author idealism
+ */
+public class ExcelStreamingUtilMemoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long streamingThreshold;
+
+    private int maxCompressionRatio;
+
+    @Before
+    public void setUp() {
+        streamingThreshold = ExcelUtil.getStreamingThreshold();
+        maxCompressionRatio = ExcelStreamingUtil.getMaxCompressionRatio();
+        // 按对象模型读取 xlsx，才会经过缓存和内存预算
+        ExcelUtil.setStreamingThreshold(Long.MAX_VALUE);
+    }
+
+    @After
+    public void tearDown() {
+        ExcelStreamingUtil.disableWorkbookCache();
+        ExcelStreamingUtil.setReadMemoryBudget(0);
+        ExcelUtil.setStreamingThreshold(streamingThreshold);
+        ExcelStreamingUtil.setMaxCompressionRatio(maxCompressionRatio);
+    }
+
+    @Test
+    public void cacheHitsUntilFileChanges() throws IOException {
+        File file = createWorkbook(new HSSFWorkbook(), "cached.xls", 100);
+        ExcelStreamingUtil.enableWorkbookCache(Long.MAX_VALUE);
+
+        List<List<Object>> first = ExcelUtil.readExcel(file.getPath());
+        List<List<Object>> second = ExcelUtil.readExcel(file.getPath());
+
+        assertEquals(first, second);
+        CacheStats stats = ExcelStreamingUtil.getWorkbookCacheStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+        // 按预计占用的堆内存计算，而不是文件大小
+        assertTrue(stats.getBytes() > file.length());
+
+        assertTrue(file.setLastModified(file.lastModified() + 10000));
+        ExcelUtil.readExcel(file.getPath());
+
+        stats = ExcelStreamingUtil.getWorkbookCacheStats();
+        assertEquals(2, stats.getMissCount());
+        // 旧的 workbook 立即淘汰，不等到超出容量
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void cacheEvictsLeastRecentlyUsed() throws IOException {
+        File first = createWorkbook(new HSSFWorkbook(), "first.xls", 100);
+        File second = createWorkbook(new HSSFWorkbook(), "second.xls", 100);
+        ExcelStreamingUtil.enableWorkbookCache(Long.MAX_VALUE);
+        ExcelUtil.readExcel(first.getPath());
+        long bytes = ExcelStreamingUtil.getWorkbookCacheStats().getBytes();
+        // 只能容纳一个 workbook
+        ExcelStreamingUtil.enableWorkbookCache(bytes + bytes / 2);
+
+        ExcelUtil.readExcel(first.getPath());
+        ExcelUtil.readExcel(second.getPath());
+        ExcelUtil.readExcel(first.getPath());
+
+        CacheStats stats = ExcelStreamingUtil.getWorkbookCacheStats();
+        assertEquals(0, stats.getHitCount());
+        assertEquals(3, stats.getMissCount());
+        assertEquals(2, stats.getEvictionCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void cacheSkipsWorkbookLargerThanCapacity() throws IOException {
+        File file = createWorkbook(new HSSFWorkbook(), "large.xls", 100);
+        ExcelStreamingUtil.enableWorkbookCache(file.length());
+
+        assertEquals(101, ExcelUtil.readExcel(file.getPath()).size());
+
+        assertEquals(0, ExcelStreamingUtil.getWorkbookCacheStats().getSize());
+    }
+
+    @Test
+    public void xlsxOverBudgetFallsBackToStreaming() throws IOException {
+        File file = createWorkbook(new XSSFWorkbook(), "large.xlsx", 2000);
+        List<List<Object>> expected = ExcelUtil.readExcel(file.getPath());
+        ExcelStreamingUtil.setReadMemoryBudget(1024 * 1024);
+
+        assertEquals(expected, ExcelUtil.readExcel(file.getPath()));
+        // 预留的内存已归还
+        assertEquals(1024 * 1024, ExcelStreamingUtil.getAvailableReadMemory());
+    }
+
+    @Test(expected = ReadLimitExceededException.class)
+    public void xlsOverBudgetIsRejected() throws IOException {
+        File file = createWorkbook(new HSSFWorkbook(), "large.xls", 2000);
+        ExcelStreamingUtil.setReadMemoryBudget(64 * 1024);
+
+        ExcelUtil.readExcel(file.getPath());
+    }
+
+    @Test(expected = ReadLimitExceededException.class)
+    public void getWorkbookOverBudgetIsRejected() throws IOException {
+        File file = createWorkbook(new XSSFWorkbook(), "large.xlsx", 2000);
+        ExcelStreamingUtil.setReadMemoryBudget(1024 * 1024);
+
+        ExcelUtil.getWorkbook(file).close();
+    }
+
+    @Test(expected = ReadLimitExceededException.class)
+    public void highCompressionRatioIsRejected() throws IOException {
+        // worksheet 解压后超过 1MB 才检查压缩比
+        File file = createWorkbook(new XSSFWorkbook(), "large.xlsx", 10000);
+        ExcelStreamingUtil.setReadMemoryBudget(Long.MAX_VALUE);
+        ExcelStreamingUtil.setMaxCompressionRatio(1);
+
+        ExcelUtil.readExcel(file.getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compressionRatioBelowOneIsRejected() {
+        ExcelStreamingUtil.setMaxCompressionRatio(0);
+    }
+
+    private File createWorkbook(Workbook workbook, String fileName, int rowCount) throws IOException {
+        File file = folder.newFile(fileName);
+        try (Workbook wb = workbook; OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("明细");
+            for (int i = 0; i <= rowCount; i++) {
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < 5; j++) {
+                    row.createCell(j).setCellValue(i == 0 ? "列" + j : "值" + i + "-" + j);
+                }
+            }
+            wb.write(out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,233 @@
+package com.github.idealismxxm.excelutils.streaming;
+
+import com.github.idealismxxm.excelutils.ExcelUtil;
+import com.github.idealismxxm.excelutils.ExcelUtil.ExcelMetrics;
+import com.github.idealismxxm.excelutils.ExcelUtil.ReadQuery;
+import com.github.idealismxxm.excelutils.ExcelUtil.SheetReadStats;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * SAX 流式解析的测试：与对象模型读取的结果一致，查询的列选择和行过滤在两种读取方式下一致
+ *
+ * @author idealism
+ */
+public class ExcelStreamingUtilReadTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long streamingThreshold;
+
+    private long sharedStringsSpillThreshold;
+
+    @Before
+    public void setUp() {
+        streamingThreshold = ExcelUtil.getStreamingThreshold();
+        sharedStringsSpillThreshold = ExcelStreamingUtil.getSharedStringsSpillThreshold();
+    }
+
+    @After
+    public void tearDown() {
+        ExcelUtil.setStreamingThreshold(streamingThreshold);
+        ExcelStreamingUtil.setSharedStringsSpillThreshold(sharedStringsSpillThreshold);
+    }
+
+    @Test
+    public void readExtensionIsLoadedFromClasspath() {
+        assertTrue(ExcelUtil.getReadExtension() instanceof ExcelStreamingUtil.StreamingReadExtension);
+    }
+
+    @Test
+    public void saxReaderMatchesDomReader() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+
+        List<List<Object>> sax = ExcelStreamingUtil.readXlsxStreaming(file, 0, null);
+
+        assertEquals(readWithDom(file), sax);
+        assertEquals(Arrays.asList("订单号", "金额", "状态", "下单时间", "加急"), sax.get(0));
+    }
+
+    @Test
+    public void saxReaderWithSpilledSharedStringsMatchesDomReader() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+        // 共享字符串表总是存放到临时文件
+        ExcelStreamingUtil.setSharedStringsSpillThreshold(0);
+
+        assertEquals(readWithDom(file), ExcelStreamingUtil.readXlsxStreaming(file, 0, null));
+    }
+
+    @Test
+    public void pathReadMatchesOnBothEngines() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+
+        ExcelUtil.setStreamingThreshold(0);
+        List<List<Object>> streaming = ExcelUtil.readExcel(file.getPath());
+        ExcelUtil.setStreamingThreshold(Long.MAX_VALUE);
+        List<List<Object>> dom = ExcelUtil.readExcel(file.getPath());
+
+        assertEquals(dom, streaming);
+        // 空行被跳过
+        assertEquals(1 + 6, dom.size());
+    }
+
+    @Test
+    public void queryProjectsAndFiltersOnSaxPath() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+        ExcelUtil.setStreamingThreshold(0);
+
+        assertEquals(expectedPaidOrders(), ExcelUtil.readExcel(file.getPath(), paidOrders()));
+    }
+
+    @Test
+    public void queryOnInputStreamUsesGivenSize() throws IOException {
+        File file = createOrders(new XSSFWorkbook(), "orders.xlsx");
+        ExcelUtil.setStreamingThreshold(1);
+
+        try (InputStream inputStream = new FileInputStream(file)) {
+            assertEquals(expectedPaidOrders(), ExcelUtil.readExcel(inputStream, "xlsx", paidOrders().size(file.length())));
+        }
+    }
+
+    @Test
+    public void saxReaderRejectsOtherFileTypes() throws IOException {
+        File file = folder.newFile("orders.xls");
+        try (Workbook workbook = new HSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+            workbook.createSheet("订单").createRow(0).createCell(0).setCellValue("订单号");
+            workbook.write(out);
+        }
+
+        try {
+            ExcelStreamingUtil.readXlsxStreaming(file, 0, null);
+            fail("xls 不能以 SAX 流式解析");
+        } catch (IOException expected) {
+            assertEquals("不支持的文件类型", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void filteredRowsAreNotCountedAsBlankOnSaxPath() throws IOException {
+        ExcelMetrics metrics = ExcelUtil.getMetrics();
+        List<SheetReadStats> stats = new ArrayList<>();
+        ExcelUtil.setMetrics(new ExcelMetrics() {
+            @Override
+            public void sheetRead(SheetReadStats sheetReadStats) {
+                stats.add(sheetReadStats);
+            }
+        });
+        try {
+            File xlsx = createStatuses(new XSSFWorkbook(), "statuses.xlsx");
+            ExcelUtil.setStreamingThreshold(0);
+            assertEquals(1 + 4, ExcelUtil.readExcel(xlsx.getPath(), ReadQuery.sheet(0).where("状态", "已支付"::equals)).size());
+        } finally {
+            ExcelUtil.setMetrics(metrics);
+        }
+
+        assertEquals(1, stats.size());
+        assertEquals(1 + 4, stats.get(0).getRows());
+        assertEquals(1, stats.get(0).getBlankRows());
+        // 包括最后一个输出行之后的行
+        assertEquals(5, stats.get(0).getFilteredRows());
+    }
+
+    private static ReadQuery paidOrders() {
+        return ReadQuery.sheet(0)
+                .select("订单号", "金额")
+                .where("状态", "已支付"::equals);
+    }
+
+    private static List<List<Object>> expectedPaidOrders() {
+        return Arrays.asList(
+                Arrays.asList("订单号", "金额"),
+                Arrays.asList("A001", 10.5),
+                Arrays.asList("A003", 30.5),
+                Arrays.asList("A005", 50.5));
+    }
+
+    private static List<List<Object>> readWithDom(File file) throws IOException {
+        try (Workbook workbook = ExcelUtil.openForRead(file)) {
+            return ExcelUtil.getSheetData(workbook, workbook.getSheetAt(0));
+        }
+    }
+
+    /**
+     * 生成状态表：第 1～10 行奇数行已支付、偶数行待支付，第 5 行不存在
+     */
+    private File createStatuses(Workbook workbook, String fileName) throws IOException {
+        File file = folder.newFile(fileName);
+        try (Workbook wb = workbook; OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("状态");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("编号");
+            header.createCell(1).setCellValue("状态");
+            for (int i = 1; i <= 10; i++) {
+                if (i == 5) {
+                    continue;
+                }
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("N" + i);
+                row.createCell(1).setCellValue(i % 2 == 1 ? "已支付" : "待支付");
+            }
+            wb.write(out);
+        }
+        return file;
+    }
+
+    /**
+     * 生成订单表：文本、两位小数、常规格式的整数、日期、布尔值，中间有一个空行
+     */
+    private File createOrders(Workbook workbook, String fileName) throws IOException {
+        File file = folder.newFile(fileName);
+        try (Workbook wb = workbook; OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("订单");
+            CellStyle amountStyle = wb.createCellStyle();
+            amountStyle.setDataFormat(wb.createDataFormat().getFormat("0.00"));
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd"));
+
+            Row header = sheet.createRow(0);
+            String[] headers = {"订单号", "金额", "状态", "下单时间", "加急"};
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set(2020, Calendar.MAY, 1);
+            int rowIndex = 1;
+            for (int i = 1; i <= 6; i++) {
+                if (i == 4) {
+                    // 空行
+                    sheet.createRow(rowIndex++).createCell(0).setCellValue(" ");
+                }
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(String.format("A%03d", i));
+                Cell amount = row.createCell(1);
+                amount.setCellValue(i * 10 + 0.5);
+                amount.setCellStyle(amountStyle);
+                row.createCell(2).setCellValue(i % 2 == 1 ? "已支付" : "待支付");
+                Cell date = row.createCell(3);
+                date.setCellValue(calendar.getTime());
+                date.setCellStyle(dateStyle);
+                if (i == 2 || i == 5) {
+                    row.createCell(4).setCellValue(true);
+                }
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+            }
+            // 常规格式的整数读取为不带小数的字符串
+            sheet.getRow(1).createCell(5).setCellValue(42);
+            wb.write(out);
+        }
+        return file;
+    }
+}